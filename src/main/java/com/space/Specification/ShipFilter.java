@@ -0,0 +1,152 @@
+package com.space.Specification;
+
+import com.space.model.ShipType;
+
+import java.util.Objects;
+
+/**
+ * Неизменяемый набор параметров фильтра кораблей
+ * <p>
+ * Используется как ключ кэша результатов фильтрации, поэтому параметры приводятся к единому виду:
+ * пустые строки name и planet не сужают выборку и заменяются на null.
+ */
+public final class ShipFilter {
+
+    private static final ShipFilter EMPTY = new ShipFilter(null, null, null, null, null, null,
+            null, null, null, null, null, null);
+
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Long after;
+    private final Long before;
+    private final Boolean isUsed;
+    private final Double minSpeed;
+    private final Double maxSpeed;
+    private final Integer minCrewSize;
+    private final Integer maxCrewSize;
+    private final Double minRating;
+    private final Double maxRating;
+
+    public ShipFilter(String name, String planet, ShipType shipType,
+                      Long after, Long before,
+                      Boolean isUsed,
+                      Double minSpeed, Double maxSpeed,
+                      Integer minCrewSize, Integer maxCrewSize,
+                      Double minRating, Double maxRating) {
+        this.name = emptyToNull(name);
+        this.planet = emptyToNull(planet);
+        this.shipType = shipType;
+        this.after = after;
+        this.before = before;
+        this.isUsed = isUsed;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.minCrewSize = minCrewSize;
+        this.maxCrewSize = maxCrewSize;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Boolean getUsed() {
+        return isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    /**
+     * @return возвращает true если не указан ни один параметр фильтра
+     */
+    public boolean isEmpty() {
+        return equals(EMPTY);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipFilter that = (ShipFilter) o;
+        return Objects.equals(name, that.name)
+                && Objects.equals(planet, that.planet)
+                && shipType == that.shipType
+                && Objects.equals(after, that.after)
+                && Objects.equals(before, that.before)
+                && Objects.equals(isUsed, that.isUsed)
+                && Objects.equals(minSpeed, that.minSpeed)
+                && Objects.equals(maxSpeed, that.maxSpeed)
+                && Objects.equals(minCrewSize, that.minCrewSize)
+                && Objects.equals(maxCrewSize, that.maxCrewSize)
+                && Objects.equals(minRating, that.minRating)
+                && Objects.equals(maxRating, that.maxRating);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    @Override
+    public String toString() {
+        return "ShipFilter{" +
+                "name='" + name + '\'' +
+                ", planet='" + planet + '\'' +
+                ", shipType=" + shipType +
+                ", after=" + after +
+                ", before=" + before +
+                ", isUsed=" + isUsed +
+                ", minSpeed=" + minSpeed +
+                ", maxSpeed=" + maxSpeed +
+                ", minCrewSize=" + minCrewSize +
+                ", maxCrewSize=" + maxCrewSize +
+                ", minRating=" + minRating +
+                ", maxRating=" + maxRating +
+                '}';
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
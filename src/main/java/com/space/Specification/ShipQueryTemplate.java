@@ -0,0 +1,172 @@
+package com.space.Specification;
+
+import com.space.model.ShipField;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Заранее собранные JPQL запросы списка и количества кораблей для одного набора указанных параметров фильтра
+ * <p>
+ * {@link ShipSpecification#getAllSpecification(ShipFilter)} на каждый запрос строит дерево Criteria API,
+ * которое Hibernate заново переводит в JPQL. Числовые значения фильтра при этом подставляются в текст запроса,
+ * поэтому каждое новое значение дает новую строку и новый разбор в кэше планов запросов.
+ * Здесь текст запроса зависит только от того, какие параметры указаны (битовая маска), и от сортировки,
+ * собирается один раз и берется из кэша, а значения передаются именованными параметрами.
+ */
+public final class ShipQueryTemplate {
+
+    private static final ConcurrentMap<Integer, ShipQueryTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final int mask;
+    private final String selectQuery;
+    private final String countQuery;
+
+    private ShipQueryTemplate(int mask, String orderBy) {
+        StringBuilder where = new StringBuilder();
+        for (Condition condition : Condition.VALUES) {
+            if ((mask & condition.bit()) == 0) continue;
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition.jpql);
+        }
+        this.mask = mask;
+        this.selectQuery = "SELECT s FROM Ship s" + where + orderBy;
+        this.countQuery = "SELECT COUNT(s) FROM Ship s" + where;
+    }
+
+    /**
+     * Метод возвращает шаблон для набора указанных параметров фильтра и сортировки
+     *
+     * @param filter       параметры фильтра кораблей
+     * @param candidateIds идентификаторы кораблей, которыми дополнительно ограничивается выборка, либо null
+     * @param sort         сортировка по одному полю {@link ShipField}, за которым может следовать id по возрастанию
+     * @return возвращает шаблон запроса, либо null, если сортировку нельзя выразить шаблоном
+     */
+    public static ShipQueryTemplate of(ShipFilter filter, long[] candidateIds, Sort sort) {
+        int sortCode = sortCode(sort);
+        if (sortCode < 0) return null;
+
+        int mask = mask(filter, candidateIds);
+        int key = mask | sortCode << Condition.VALUES.length;
+        ShipQueryTemplate template = TEMPLATES.get(key);
+        if (template != null) return template;
+
+        return TEMPLATES.computeIfAbsent(key, k -> new ShipQueryTemplate(mask, orderBy(sort)));
+    }
+
+    public String getSelectQuery() {
+        return selectQuery;
+    }
+
+    public String getCountQuery() {
+        return countQuery;
+    }
+
+    /**
+     * Метод передает в запрос значения указанных параметров фильтра
+     *
+     * @param query        запрос, созданный по {@link #getSelectQuery()} или {@link #getCountQuery()}
+     * @param filter       параметры фильтра кораблей того же набора, что и при получении шаблона
+     * @param candidateIds идентификаторы кораблей, непустой массив, если шаблон получен с ними
+     * @return возвращает переданный запрос
+     */
+    public <Q extends Query> Q bind(Q query, ShipFilter filter, long[] candidateIds) {
+        for (Condition condition : Condition.VALUES) {
+            if ((mask & condition.bit()) == 0) continue;
+
+            if (condition == Condition.IDS) {
+                List<Long> ids = new ArrayList<>(candidateIds.length);
+                for (long id : candidateIds) {
+                    ids.add(id);
+                }
+                query.setParameter(condition.parameter, ids);
+            } else {
+                query.setParameter(condition.parameter, condition.value.apply(filter));
+            }
+        }
+        return query;
+    }
+
+    private static int mask(ShipFilter filter, long[] candidateIds) {
+        int mask = 0;
+        for (Condition condition : Condition.VALUES) {
+            if (condition == Condition.IDS ? candidateIds != null : condition.value.apply(filter) != null) {
+                mask |= condition.bit();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Сортировка кодируется номером поля, направлением и признаком второго поля id по возрастанию,
+     * 0 - без сортировки, -1 - не поддерживается
+     */
+    private static int sortCode(Sort sort) {
+        if (sort.isUnsorted()) return 0;
+
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() > 2) return -1;
+        if (orders.size() == 2 && (!"id".equals(orders.get(1).getProperty()) || orders.get(1).isDescending())) return -1;
+
+        Sort.Order order = orders.get(0);
+        ShipField field;
+        try {
+            field = ShipField.of(order.getProperty());
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        return 1 + ((field.ordinal() * 2 + (order.isAscending() ? 0 : 1)) * 2 + orders.size() - 1);
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) return "";
+
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order order : sort) {
+            orderBy.add("s." + order.getProperty() + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * Условия фильтра в том же порядке, что и в {@link ShipSpecification#getAllSpecification(ShipFilter)}
+     * Диапазон с обеими границами записывается двумя условиями вместо BETWEEN, результат тот же
+     */
+    private enum Condition {
+        NAME("s.name LIKE :name", f -> f.getName() == null ? null : "%" + f.getName() + "%"),
+        PLANET("s.planet LIKE :planet", f -> f.getPlanet() == null ? null : "%" + f.getPlanet() + "%"),
+        SHIP_TYPE("s.shipType = :shipType", ShipFilter::getShipType),
+        AFTER("s.prodDate >= :after", f -> f.getAfter() == null ? null : new Date(f.getAfter())),
+        BEFORE("s.prodDate <= :before", f -> f.getBefore() == null ? null : new Date(f.getBefore())),
+        IS_USED("s.isUsed = :isUsed", ShipFilter::getUsed),
+        MIN_SPEED("s.speed >= :minSpeed", ShipFilter::getMinSpeed),
+        MAX_SPEED("s.speed <= :maxSpeed", ShipFilter::getMaxSpeed),
+        MIN_CREW_SIZE("s.crewSize >= :minCrewSize", ShipFilter::getMinCrewSize),
+        MAX_CREW_SIZE("s.crewSize <= :maxCrewSize", ShipFilter::getMaxCrewSize),
+        MIN_RATING("s.rating >= :minRating", ShipFilter::getMinRating),
+        MAX_RATING("s.rating <= :maxRating", ShipFilter::getMaxRating),
+        IDS("s.id IN :ids", f -> null);
+
+        private static final Condition[] VALUES = values();
+
+        private final String jpql;
+        private final String parameter;
+        private final Function<ShipFilter, Object> value;
+
+        Condition(String jpql, Function<ShipFilter, Object> value) {
+            this.jpql = jpql;
+            this.parameter = jpql.substring(jpql.indexOf(':') + 1);
+            this.value = value;
+        }
+
+        private int bit() {
+            return 1 << ordinal();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.space.model.Ship;
 import com.space.model.ShipType;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.CriteriaBuilder;
 import java.util.Date;
 
 /**
@@ -47,6 +48,68 @@ public class ShipSpecification {
                 .and(specShipsByRatingBetween(minRating, maxRating));
     }
 
+    /**
+     * Метод возвращает данные из базы по параметрам фильтра
+     *
+     * @param filter параметры фильтра кораблей
+     * @return возвращает список кораблей согласно фильтра
+     */
+    public static Specification<Ship> getAllSpecification(ShipFilter filter) {
+        return getAllSpecification(
+                filter.getName(), filter.getPlanet(), filter.getShipType(),
+                filter.getAfter(), filter.getBefore(),
+                filter.getUsed(),
+                filter.getMinSpeed(), filter.getMaxSpeed(),
+                filter.getMinCrewSize(), filter.getMaxCrewSize(),
+                filter.getMinRating(), filter.getMaxRating());
+    }
+
+    /**
+     * Метод отфильтровывает корабли по списку идентификаторов
+     *
+     * @param ids отсортированный массив идентификаторов кораблей
+     * @return возвращает корабли с указанными идентификаторами, для пустого массива ни одного корабля
+     */
+    public static Specification<Ship> getIdInSpecification(long[] ids) {
+        return (r, q, cb) -> {
+            if (ids.length == 0) return cb.disjunction();
+
+            CriteriaBuilder.In<Long> in = cb.in(r.get("id"));
+            for (long id : ids) {
+                in.value(id);
+            }
+            return in;
+        };
+    }
+
+    /**
+     * Метод отфильтровывает корабли, расположенные после указанного ключа сортировки
+     * Используется для keyset (seek) пагинации: условие (sortKey, id) > (sortValue, id)
+     * позволяет получать следующую страницу без OFFSET. NULL в поле сортировки считается меньше
+     * любого значения, как при сортировке по возрастанию в MySQL и H2
+     *
+     * @param fieldName наименование поля сортировки
+     * @param sortValue значение поля сортировки последнего корабля предыдущей страницы, может быть null
+     * @param id        идентификатор последнего корабля предыдущей страницы
+     * @return если id указан возвращает корабли, следующие за указанным ключом сортировки
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Ship> getAfterKeySpecification(String fieldName, Comparable sortValue, Long id) {
+        return (r, q, cb) -> {
+            if (id == null) return null;
+            if ("id".equals(fieldName)) return cb.greaterThan(r.get("id"), id);
+            if (sortValue == null) {
+                return cb.or(
+                        cb.isNotNull(r.get(fieldName)),
+                        cb.and(cb.isNull(r.get(fieldName)), cb.greaterThan(r.get("id"), id)));
+            }
+
+            return cb.or(
+                    cb.greaterThan(r.<Comparable>get(fieldName), sortValue),
+                    cb.and(cb.equal(r.get(fieldName), sortValue), cb.greaterThan(r.get("id"), id)));
+        };
+    }
+
     /**
      * Метод отфильтровывает корабли по наименованию корабля
      *
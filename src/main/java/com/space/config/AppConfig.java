@@ -1,33 +1,69 @@
 package com.space.config;
 
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.space.metrics.ApplicationMetrics;
+import com.space.metrics.ConnectionPoolMetrics;
+import com.space.metrics.SecondLevelCacheMetrics;
+import com.space.metrics.SqlProfiler;
+import com.space.metrics.SqlStatementCounter;
+import com.space.service.ShipListCache;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
-import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.init.DataSourceInitializer;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.space.service")
+@ComponentScan({"com.space.service", "com.space.search", "com.space.repository"})
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@PropertySource("classpath:application.properties")
 public class AppConfig {
 
+    private final Environment env;
+
+    public AppConfig(Environment env) {
+        this.env = env;
+    }
+
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
@@ -40,28 +76,115 @@ public class AppConfig {
         return em;
     }
 
+    /**
+     * Если заданы db.replica.urls, read-only транзакции выполняются на репликах через {@link ReplicaRoutingDataSource}
+     */
     @Profile("prod")
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        HikariConfig config = hikariConfig("cosmoport", env.getProperty("db.url"),
+                env.getProperty("db.username"), env.getProperty("db.password"));
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(connectionPoolMetrics());
+        DataSource primary = new HikariDataSource(config);
+
+        List<DataSource> replicas = new ArrayList<>();
+        String[] urls = StringUtils.tokenizeToStringArray(env.getProperty("db.replica.urls", ""), ",");
+        for (int i = 0; i < urls.length; i++) {
+            replicas.add(new HikariDataSource(hikariConfig("cosmoport-replica-" + (i + 1), urls[i],
+                    env.getProperty("db.replica.username", env.getProperty("db.username")),
+                    env.getProperty("db.replica.password", env.getProperty("db.password")))));
+        }
+
+        return sqlProfiler().wrap(routeReads(primary, replicas, env.getProperty("db.replica.lagQuery", "SHOW SLAVE STATUS"),
+                env.getProperty("db.replica.readAfterWriteMs", Long.class, 2000L)));
+    }
+
+    private HikariConfig hikariConfig(String poolName, String url, String username, String password) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(env.getProperty("db.driverClassName"));
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        config.setMaximumPoolSize(env.getProperty("db.pool.maximumPoolSize", Integer.class, 10));
+        config.setMinimumIdle(env.getProperty("db.pool.minimumIdle", Integer.class, 2));
+        config.setConnectionTimeout(env.getProperty("db.pool.connectionTimeoutMs", Long.class, 3000L));
+        config.setIdleTimeout(env.getProperty("db.pool.idleTimeoutMs", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("db.pool.maxLifetimeMs", Long.class, 1800000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leakDetectionThresholdMs", Long.class, 10000L));
+
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", env.getProperty("db.statementCache.size", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", env.getProperty("db.statementCache.sqlLimit", "2048"));
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("useCursorFetch", "true");
+
+        return config;
+    }
+
+    private DataSource routeReads(DataSource primary, List<DataSource> replicas, String lagQuery, long readAfterWriteMs) {
+        if (replicas.isEmpty()) return primary;
+
+        return new ReplicaRoutingDataSource(primary, replicas, lagQuery,
+                env.getProperty("db.replica.maxLagMs", Long.class, 1000L),
+                env.getProperty("db.replica.lagCheckIntervalMs", Long.class, 1000L), readAfterWriteMs);
     }
 
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    /**
+     * Реплики профиля dev - отдельные пулы соединений к той же H2 в памяти, поэтому они не отстают
+     * и чтение после записи не переводится на основную БД, а read-only транзакции тестов проходят
+     * через {@link ReplicaRoutingDataSource}. Количество реплик задает db.replica.count, по умолчанию 2,
+     * профиль prod его не читает, реплики prod перечисляются в db.replica.urls
+     */
     @Profile("dev")
     @Bean(name = "dataSource")
     public DataSource dataSourceForTests() {
-
-        return new EmbeddedDatabaseBuilder()
-                .generateUniqueName(true)
+        String name = UUID.randomUUID().toString();
+        DataSource primary = new EmbeddedDatabaseBuilder()
+                .setName(name)
                 .setType(H2)
                 .setScriptEncoding("UTF-8")
                 .ignoreFailedDrops(true)
-                .addScript("test.sql")
+                .addScript("h2-mysql-mode.sql")
                 .build();
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < env.getProperty("db.replica.count", Integer.class, 2); i++) {
+            replicas.add(new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        }
+
+        return sqlProfiler().wrap(routeReads(primary, replicas, "SELECT 0", 0));
+    }
+
+    @Bean(initMethod = "migrate")
+    public Flyway flyway() {
+        return Flyway.configure()
+                .dataSource(dataSource())
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    @Profile("dev")
+    @Bean
+    @DependsOn("flyway")
+    public DataSourceInitializer dataSourceInitializerForTests() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+
+        DataSourceInitializer initializer = new DataSourceInitializer();
+        initializer.setDataSource(dataSource());
+        initializer.setDatabasePopulator(populator);
+        return initializer;
     }
 
     @Bean
@@ -72,15 +195,92 @@ public class AppConfig {
         return transactionManager;
     }
 
+    /**
+     * Для чтения кораблей в обход Hibernate, внутри транзакции JpaTransactionManager использует ее соединение
+     */
+    @Bean
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource());
+    }
+
     @Bean
     public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
+    /**
+     * Менеджер кэша второго уровня со своим URI, а не общий для JVM менеджер провайдера по умолчанию
+     * Закрытие контекста закрывает только его кэши, а второй контекст в той же JVM получает собственные регионы
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-cache:" + UUID.randomUUID()), AppConfig.class.getClassLoader());
+
+        createCache(cacheManager, SecondLevelCacheMetrics.SHIP_REGION,
+                env.getProperty("cache.ship.maximumSize", Long.class, 10000L),
+                env.getProperty("cache.ship.expireAfterWriteSeconds", Long.class, 600L));
+        createCache(cacheManager, SecondLevelCacheMetrics.QUERY_REGION,
+                env.getProperty("cache.query.maximumSize", Long.class, 1000L),
+                env.getProperty("cache.query.expireAfterWriteSeconds", Long.class, 60L));
+        // регион временных меток не ограничивается, иначе кэш запросов может вернуть устаревший результат
+        createCache(cacheManager, "default-update-timestamps-region", null, null);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public SecondLevelCacheMetrics secondLevelCacheMetrics(EntityManagerFactory emf) {
+        return new SecondLevelCacheMetrics(emf.unwrap(SessionFactory.class).getStatistics());
+    }
+
+    @Bean
+    public ApplicationMetrics applicationMetrics(SecondLevelCacheMetrics secondLevelCacheMetrics, ShipListCache shipListCache) {
+        return new ApplicationMetrics(connectionPoolMetrics(), secondLevelCacheMetrics, shipListCache);
+    }
+
+    @Bean
+    public SqlProfiler sqlProfiler() {
+        return new SqlProfiler(
+                env.getProperty("sql.profiler.enabled", Boolean.class, true),
+                env.getProperty("sql.profiler.slowThresholdMs", Long.class, 100L),
+                env.getProperty("sql.profiler.slowLogSize", Integer.class, 200),
+                env.getProperty("sql.profiler.maxStatements", Integer.class, 1000));
+    }
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    private static void createCache(CacheManager cacheManager, String name, Long maximumSize, Long expireAfterWriteSeconds) {
+        if (cacheManager.getCache(name) != null) return;
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maximumSize != null) configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        if (expireAfterWriteSeconds != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds)));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
 
+        properties.setProperty("hibernate.jdbc.batch_size", env.getProperty("db.batch.size", "500"));
+        properties.setProperty("hibernate.order_updates", "true");
+        // список id IN (...) дополняется до степени двойки, чтобы разное число кандидатов давало меньше разных SQL
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
+
+        properties.setProperty("hibernate.cache.use_second_level_cache", env.getProperty("cache.enabled", "true"));
+        properties.setProperty("hibernate.cache.use_query_cache", env.getProperty("cache.enabled", "true"));
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager());
+        properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "fail");
+        properties.setProperty("hibernate.generate_statistics", env.getProperty("cache.statistics.enabled", "true"));
+        properties.put("hibernate.session_factory.statement_inspector", sqlStatementCounter());
+
         return properties;
     }
 }
\ No newline at end of file
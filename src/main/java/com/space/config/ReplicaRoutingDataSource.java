@@ -0,0 +1,231 @@
+package com.space.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Источник соединений, который направляет read-only транзакции на реплики, а остальные запросы на основную БД
+ * <p>
+ * Признак read-only транзакции выставляется уже после того, как менеджер транзакций запросил соединение,
+ * поэтому настоящее соединение берется лениво, при первом SQL запросе, как в {@link LazyConnectionDataSourceProxy}.
+ * Реплики выбираются по кругу. Отставание реплики проверяется запросом lagQuery не чаще раза
+ * в checkIntervalMs, реплика с отставанием больше maxLagMs, неизвестным отставанием или ошибкой соединения
+ * пропускается. Если подходящих реплик нет, запрос выполняется на основной БД.
+ * <p>
+ * После записи реплики получают изменения с отставанием, а чтение с них вернуло бы прежние данные
+ * и снова заполнило бы ими кэши, которые запись только что сбросила. Поэтому после завершения транзакции
+ * с правом записи read-only транзакции этого экземпляра еще readAfterWriteMs выполняются на основной БД.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final long checkIntervalMs;
+    private final long readAfterWriteMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong primaryUntil = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                    String lagQuery, long maxLagMs, long checkIntervalMs, long readAfterWriteMs) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>(replicas.size());
+        for (DataSource replica : replicas) {
+            list.add(new Replica(replica));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.checkIntervalMs = checkIntervalMs;
+        this.readAfterWriteMs = readAfterWriteMs;
+
+        setTargetDataSource(new Router());
+        afterPropertiesSet();
+    }
+
+    /**
+     * @return возвращает количество соединений, выданных основной БД
+     */
+    public long getPrimaryConnectionCount() {
+        return primaryConnections.get();
+    }
+
+    /**
+     * @param index номер реплики в порядке настройки
+     * @return возвращает количество соединений, выданных репликой
+     */
+    public long getReplicaConnectionCount(int index) {
+        return replicas.get(index).connections.get();
+    }
+
+    /**
+     * @param index номер реплики в порядке настройки
+     * @return возвращает последнее измеренное отставание реплики в миллисекундах,
+     * либо Long.MAX_VALUE, если реплика недоступна
+     */
+    public long getReplicaLagMs(int index) {
+        return replicas.get(index).lagMs;
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Закрывает пулы соединений основной БД и реплик
+     */
+    @Override
+    public void close() throws IOException {
+        close(primary);
+        for (Replica replica : replicas) {
+            close(replica.dataSource);
+        }
+    }
+
+    private Connection route() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            onWrite();
+        } else if (!replicas.isEmpty() && System.currentTimeMillis() >= primaryUntil.get()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Connection connection = replicas.get((start + i) % replicas.size()).getConnection();
+                if (connection != null) return connection;
+            }
+        }
+        primaryConnections.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    /**
+     * Транзакция с правом записи продлевает окно чтения с основной БД сразу и еще раз после завершения,
+     * когда изменения зафиксированы. Соединения вне транзакции, например проверка настроек соединения
+     * при запуске, окно не открывают.
+     */
+    private void onWrite() {
+        if (readAfterWriteMs <= 0 || !TransactionSynchronizationManager.isActualTransactionActive()) return;
+
+        extendPrimaryWindow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    extendPrimaryWindow();
+                }
+            });
+        }
+    }
+
+    private void extendPrimaryWindow() {
+        primaryUntil.accumulateAndGet(System.currentTimeMillis() + readAfterWriteMs, Math::max);
+    }
+
+    private static void close(DataSource dataSource) throws IOException {
+        if (dataSource instanceof EmbeddedDatabase) {
+            ((EmbeddedDatabase) dataSource).shutdown();
+        } else if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private final class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return route();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return route();
+        }
+    }
+
+    private final class Replica {
+
+        private final DataSource dataSource;
+        private final AtomicBoolean checking = new AtomicBoolean();
+        private final AtomicLong connections = new AtomicLong();
+        private volatile long lagMs;
+        private volatile long checkedAt;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Возвращает соединение, либо null, если реплика отстает или недоступна
+         * Отставание перепроверяет один поток, остальные в это время используют предыдущее значение
+         */
+        private Connection getConnection() {
+            long now = System.currentTimeMillis();
+            if (now - checkedAt >= checkIntervalMs && checking.compareAndSet(false, true)) {
+                try {
+                    lagMs = measureLag();
+                    checkedAt = now;
+                } finally {
+                    checking.set(false);
+                }
+            }
+            if (lagMs > maxLagMs) return null;
+
+            try {
+                Connection connection = dataSource.getConnection();
+                connections.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                lagMs = UNAVAILABLE;
+                checkedAt = now;
+                return null;
+            }
+        }
+
+        /**
+         * Запрос отставания возвращает секунды в первом столбце, для SHOW SLAVE STATUS
+         * и SHOW REPLICA STATUS берется столбец Seconds_Behind_Master или Seconds_Behind_Source
+         */
+        private long measureLag() {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) return UNAVAILABLE;
+
+                double seconds = rs.getDouble(lagColumn(rs.getMetaData()));
+                return rs.wasNull() ? UNAVAILABLE : (long) (seconds * 1000);
+            } catch (SQLException e) {
+                return UNAVAILABLE;
+            }
+        }
+
+        private int lagColumn(ResultSetMetaData metaData) throws SQLException {
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String label = metaData.getColumnLabel(i);
+                if ("Seconds_Behind_Master".equalsIgnoreCase(label) || "Seconds_Behind_Source".equalsIgnoreCase(label)) {
+                    return i;
+                }
+            }
+            return 1;
+        }
+    }
+}
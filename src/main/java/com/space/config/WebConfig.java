@@ -2,13 +2,31 @@ package com.space.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.metrics.ApplicationMetrics;
+import com.space.metrics.RequestMetricsInterceptor;
+import com.space.metrics.RequestMetricsTaskDecorator;
+import com.space.metrics.SqlProfiler;
+import com.space.metrics.SqlStatementCounter;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.core.instrument.binder.system.UptimeMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -22,6 +40,18 @@ import java.util.List;
 @ComponentScan("com.space.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    private final SqlStatementCounter sqlStatementCounter;
+    private final SqlProfiler sqlProfiler;
+    private final ApplicationMetrics applicationMetrics;
+    private final Environment env;
+
+    public WebConfig(SqlStatementCounter sqlStatementCounter, SqlProfiler sqlProfiler, ApplicationMetrics applicationMetrics,
+                     Environment env) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.sqlProfiler = sqlProfiler;
+        this.applicationMetrics = applicationMetrics;
+        this.env = env;
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -42,11 +72,68 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
     }
 
+    @Bean
+    public ObjectMapper objectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return objectMapper;
+    }
+
+    @Bean(destroyMethod = "close")
+    public PrometheusMeterRegistry meterRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().commonTags("application", "cosmoport");
+
+        new JvmMemoryMetrics().bindTo(registry);
+        jvmGcMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ClassLoaderMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+        new UptimeMetrics().bindTo(registry);
+        applicationMetrics.bindTo(registry);
+
+        return registry;
+    }
+
+    @Bean(destroyMethod = "close")
+    public JvmGcMetrics jvmGcMetrics() {
+        return new JvmGcMetrics();
+    }
+
+    /**
+     * Пул асинхронной обработки запросов к БД
+     * Поток сервлет-контейнера освобождается сразу после приема запроса. Размер пула ограничивает
+     * количество одновременных обращений к БД, очередь - количество ожидающих запросов, при заполненной
+     * очереди запрос отклоняется с 503, а не ждет свободного потока.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor requestExecutor() {
+        int threads = env.getProperty("web.async.threads", Integer.class, 20);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("request-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(env.getProperty("web.async.queueCapacity", Integer.class, 200));
+        executor.setTaskDecorator(new RequestMetricsTaskDecorator(sqlStatementCounter, sqlProfiler));
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(requestExecutor());
+        configurer.setDefaultTimeout(env.getProperty("web.async.timeoutMs", Long.class, 10000L));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(meterRegistry(), sqlStatementCounter, sqlProfiler))
+                .addPathPatterns("/rest/**");
+    }
+
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(new MappingJackson2HttpMessageConverter(objectMapper()));
     }
 }
\ No newline at end of file
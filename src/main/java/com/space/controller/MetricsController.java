@@ -0,0 +1,31 @@
+package com.space.controller;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+
+@RestController
+public class MetricsController {
+
+    private final PrometheusMeterRegistry meterRegistry;
+
+    public MetricsController(PrometheusMeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    /**
+     * Метрики приложения в текстовом формате Prometheus
+     * Ответ пишется напрямую, потому что WebConfig регистрирует только JSON конвертер
+     */
+    @GetMapping(value = "/metrics")
+    public void scrape(HttpServletResponse response) throws IOException {
+        response.setContentType(TextFormat.CONTENT_TYPE_004);
+        meterRegistry.scrape(response.getWriter());
+    }
+}
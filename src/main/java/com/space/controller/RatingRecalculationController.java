@@ -0,0 +1,39 @@
+package com.space.controller;
+
+import com.space.model.RatingRecalculationProgress;
+import com.space.service.RatingRecalculationJob;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping(value = "/rest/ships/rating/recalculation")
+public class RatingRecalculationController {
+
+    private final RatingRecalculationJob ratingRecalculationJob;
+
+    public RatingRecalculationController(RatingRecalculationJob ratingRecalculationJob) {
+        this.ratingRecalculationJob = ratingRecalculationJob;
+    }
+
+
+    @PostMapping
+    public ResponseEntity<RatingRecalculationProgress> start() {
+        if (!ratingRecalculationJob.start()) return new ResponseEntity<>(HttpStatus.CONFLICT);
+
+        return new ResponseEntity<>(ratingRecalculationJob.getProgress(), HttpStatus.ACCEPTED);
+    }
+
+
+    @GetMapping
+    public ResponseEntity<RatingRecalculationProgress> getProgress() {
+        RatingRecalculationProgress progress = ratingRecalculationJob.getProgress();
+        if (progress == null) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        return new ResponseEntity<>(progress, HttpStatus.OK);
+    }
+}
@@ -1,20 +1,50 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.Specification.ShipFilter;
 import com.space.Specification.ShipSpecification;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipField;
 import com.space.model.ShipType;
 import com.space.service.ShipService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
+ * Запросы, которые обращаются к БД, выполняются асинхронно в пуле requestExecutor и возвращают
+ * {@link CompletableFuture}, поэтому поток сервлет-контейнера не ждет ответа БД. Проверка параметров
+ * выполняется до передачи в пул. Пакетная загрузка и выгрузка кораблей читают и пишут тело запроса
+ * потоком и остаются синхронными.
+ * <p>
+ * Параметр reader=JDBC читает страницу списка и отдельный корабль обычным JDBC запросом в обход Hibernate,
+ * без параметра способ чтения задается свойством read.jdbc.enabled.
+ *
  * @author Ivan Kurilov on 18.06.2020
  */
 
@@ -22,15 +52,23 @@ import java.util.List;
 @RequestMapping(value = "/rest")
 public class ShipController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final ShipService shipService;
+    private final ObjectMapper objectMapper;
+    private final Executor requestExecutor;
 
-    public ShipController(ShipService shipService) {
+    public ShipController(ShipService shipService, ObjectMapper objectMapper,
+                          @Qualifier("requestExecutor") Executor requestExecutor) {
         this.shipService = shipService;
+        this.objectMapper = objectMapper;
+        this.requestExecutor = requestExecutor;
     }
 
 
     @RequestMapping(value = "/ships", method = RequestMethod.GET)
-    public List<Ship> getAllShips(
+    public CompletableFuture<ResponseEntity<List<?>>> getAllShips(
             @RequestParam(name = "name", required = false) String name,
             @RequestParam(name = "planet", required = false) String planet,
             @RequestParam(name = "shipType", required = false) ShipType shipType,
@@ -45,12 +83,13 @@ public class ShipController {
             @RequestParam(name = "maxRating", required = false) Double maxRating,
             @RequestParam(name = "order", required = false, defaultValue = "ID") ShipOrder order,
             @RequestParam(name = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
-            @RequestParam(name = "pageSize", required = false, defaultValue = "3") Integer pageSize
+            @RequestParam(name = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestParam(name = "reader", required = false) ShipReader reader
     ) {
 
-        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
-
-        Specification<Ship> spec = ShipSpecification.getAllSpecification(
+        ShipFilter filter = new ShipFilter(
                 name, planet, shipType,
                 after, before,
                 isUsed,
@@ -58,15 +97,104 @@ public class ShipController {
                 minCrewSize, maxCrewSize,
                 minRating, maxRating);
 
-        return shipService.getAllShips(spec, pageable);
+        if (cursor == null && fields == null && isJdbc(reader)) {
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
+            return async(() -> ResponseEntity.ok(shipService.getAllShipViews(filter, pageable)));
+        }
+        if (fields == null) return async(() -> findShips(filter, order, pageNumber, pageSize, cursor));
+
+        List<ShipField> shipFields;
+        try {
+            shipFields = ShipField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return async(() -> findShipFields(filter, order, pageNumber, pageSize, cursor, shipFields));
+    }
+
+    private ResponseEntity<List<?>> findShips(ShipFilter filter, ShipOrder order,
+                                              int pageNumber, int pageSize, String cursor) {
+        if (cursor == null) {
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
+            return ResponseEntity.ok(shipService.getAllShips(filter, pageable));
+        }
+
+        Specification<Ship> spec = getAfterCursorSpecification(filter, order, cursor);
+        if (spec == null) return ResponseEntity.badRequest().build();
+
+        Slice<Ship> ships = shipService.getSliceShips(spec, getCursorPageable(order, pageSize));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (ships.hasNext()) {
+            List<Ship> content = ships.getContent();
+            response.header(NEXT_CURSOR_HEADER, ShipCursor.of(order, content.get(content.size() - 1)).encode());
+        }
+        return response.body(ships.getContent());
+    }
+
+    /**
+     * Список кораблей, в котором у каждого корабля только поля из параметра fields
+     * Для курсора дополнительно выбираются id и поле сортировки, если их не запросили,
+     * и после построения курсора удаляются из ответа
+     */
+    private ResponseEntity<List<?>> findShipFields(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize,
+                                                   String cursor, List<ShipField> fields) {
+        if (cursor == null) {
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
+            return ResponseEntity.ok(shipService.getAllShipFields(filter, pageable, fields));
+        }
+
+        Specification<Ship> spec = getAfterCursorSpecification(filter, order, cursor);
+        if (spec == null) return ResponseEntity.badRequest().build();
+
+        List<ShipField> select = new ArrayList<>(fields);
+        for (ShipField key : new ShipField[]{ShipField.ID, ShipField.of(order.getFieldName())}) {
+            if (!select.contains(key)) select.add(key);
+        }
+
+        Slice<Map<String, Object>> ships = shipService.getSliceShipFields(spec, getCursorPageable(order, pageSize), select);
+        List<Map<String, Object>> content = ships.getContent();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (ships.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, ShipCursor.of(order, content.get(content.size() - 1)).encode());
+        }
+        for (ShipField extra : select.subList(fields.size(), select.size())) {
+            for (Map<String, Object> ship : content) {
+                ship.remove(extra.getFieldName());
+            }
+        }
+        return response.body(content);
     }
 
-    ;
+    /**
+     * Фильтр кораблей, который продолжает выборку после переданного курсора
+     *
+     * @return возвращает фильтр, либо null, если курсор некорректен или получен для другого порядка сортировки
+     */
+    private Specification<Ship> getAfterCursorSpecification(ShipFilter filter, ShipOrder order, String cursor) {
+        Specification<Ship> spec = shipService.getSpecification(filter);
+        if (cursor.isEmpty()) return spec;
 
+        ShipCursor shipCursor;
+        try {
+            shipCursor = ShipCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (shipCursor.getOrder() != order) return null;
+
+        return spec.and(ShipSpecification.getAfterKeySpecification(
+                order.getFieldName(), shipCursor.getSortValue(), shipCursor.getId()));
+    }
+
+    private static Pageable getCursorPageable(ShipOrder order, int pageSize) {
+        return PageRequest.of(0, pageSize, Sort.by(order.getFieldName()).and(Sort.by("id")));
+    }
 
     @RequestMapping(value = "/ships/count", method = RequestMethod.GET)
     public @ResponseBody
-    Integer getCount(
+    CompletableFuture<Integer> getCount(
             @RequestParam(name = "name", required = false) String name,
             @RequestParam(name = "planet", required = false) String planet,
             @RequestParam(name = "shipType", required = false) ShipType shipType,
@@ -81,7 +209,7 @@ public class ShipController {
             @RequestParam(name = "maxRating", required = false) Double maxRating
     ) {
 
-        Specification<Ship> spec = ShipSpecification.getAllSpecification(
+        ShipFilter filter = new ShipFilter(
                 name, planet, shipType,
                 after, before,
                 isUsed,
@@ -89,68 +217,229 @@ public class ShipController {
                 minCrewSize, maxCrewSize,
                 minRating, maxRating);
 
-        return shipService.getAllShips(spec).size();
+        return async(() -> Math.toIntExact(shipService.getCountShips(filter)));
+    }
+
+    @GetMapping(value = "/ships/export")
+    public void exportShips(
+            @RequestParam(name = "name", required = false) String name,
+            @RequestParam(name = "planet", required = false) String planet,
+            @RequestParam(name = "shipType", required = false) ShipType shipType,
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "before", required = false) Long before,
+            @RequestParam(name = "isUsed", required = false) Boolean isUsed,
+            @RequestParam(name = "minSpeed", required = false) Double minSpeed,
+            @RequestParam(name = "maxSpeed", required = false) Double maxSpeed,
+            @RequestParam(name = "minCrewSize", required = false) Integer minCrewSize,
+            @RequestParam(name = "maxCrewSize", required = false) Integer maxCrewSize,
+            @RequestParam(name = "minRating", required = false) Double minRating,
+            @RequestParam(name = "maxRating", required = false) Double maxRating,
+            @RequestParam(name = "order", required = false, defaultValue = "ID") ShipOrder order,
+            @RequestParam(name = "format", required = false, defaultValue = "NDJSON") ShipExportFormat format,
+            HttpServletResponse response
+    ) throws IOException {
+
+        ShipFilter filter = new ShipFilter(
+                name, planet, shipType,
+                after, before,
+                isUsed,
+                minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize,
+                minRating, maxRating);
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ShipExportWriter writer = ShipExportWriter.of(format, objectMapper, response.getOutputStream());
+        shipService.exportShips(filter, Sort.by(order.getFieldName()).and(Sort.by("id")), writer);
+        writer.finish();
     }
 
     @GetMapping(value = "/ships/{id}")
     @ResponseBody
-    public ResponseEntity<Ship> getShipId(@PathVariable("id") Long shipId) {
-
-        if (shipId == 0) return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    public CompletableFuture<ResponseEntity<?>> getShipId(@PathVariable("id") Long shipId,
+                                                         @RequestParam(name = "reader", required = false) ShipReader reader) {
 
-        Ship ship = shipService.getShipById(shipId);
+        if (shipId == 0) return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
 
-        if (ship == null) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        return async(() -> {
+            Object ship = isJdbc(reader) ? shipService.getShipViewById(shipId) : shipService.getShipById(shipId);
 
-        return new ResponseEntity<>(ship, HttpStatus.OK);
+            if (ship == null) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 
+            return new ResponseEntity<>(ship, HttpStatus.OK);
+        });
     }
 
     @PostMapping(value = "/ships")
-    public ResponseEntity<Ship> createShip(@RequestBody Ship ship) {
+    public CompletableFuture<ResponseEntity<Ship>> createShip(@RequestBody Ship ship) {
 
+        return async(() -> {
+            try {
+                shipService.createShip(ship);
+            } catch (Exception e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+
+            return ResponseEntity.ok().body(ship);
+        });
+    }
+
+    @PostMapping(value = "/ships/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ShipBatchResult> createShips(InputStream body) throws IOException {
+
+        JsonNode ships;
         try {
-            shipService.createShip(ship);
-        } catch (Exception e) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            ships = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
         }
+        if (ships == null || !ships.isArray()) return ResponseEntity.badRequest().build();
 
-        return ResponseEntity.ok().body(ship);
+        List<Ship> batch = new ArrayList<>(ships.size());
+        for (JsonNode ship : ships) {
+            batch.add(readShip(ship));
+        }
+        return ResponseEntity.ok(shipService.createShips(batch));
     }
 
-    @PostMapping(value = "/ships/{id}")
-    public ResponseEntity<Ship> updateShip(@RequestBody Ship ship, @PathVariable Long id) {
+    @PostMapping(value = "/ships/batch", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ShipBatchResult> createShipsNdjson(InputStream body) throws IOException {
+
+        List<Ship> batch = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) continue;
+            try {
+                batch.add(readShip(objectMapper.readTree(line)));
+            } catch (JsonProcessingException e) {
+                batch.add(null);
+            }
+        }
+        return ResponseEntity.ok(shipService.createShips(batch));
+    }
 
-        if (id == 0) return ResponseEntity.badRequest().body(ship);
+    @PostMapping(value = "/ships/{id}")
+    public CompletableFuture<ResponseEntity<Ship>> updateShip(@RequestBody Ship ship, @PathVariable Long id) {
 
-        Ship checkExistShip = shipService.getShipById(id);
-        if (checkExistShip == null) return ResponseEntity.notFound().build();
+        if (id == 0) return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ship));
 
-        Ship updateShip;
-        try {
-            updateShip = shipService.updateShip(ship, checkExistShip);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(ship);
-        }
-        return ResponseEntity.ok().body(updateShip);
+        return async(() -> {
+            Ship updateShip;
+            try {
+                updateShip = shipService.updateShip(id, ship);
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(ship);
+            }
+            if (updateShip == null) return ResponseEntity.notFound().build();
 
+            return ResponseEntity.ok().body(updateShip);
+        });
     }
 
     @DeleteMapping(value = "/ships/{id}")
     @ResponseBody
-    public ResponseEntity<Ship> deleteShip(@PathVariable("id") Long id) {
+    public CompletableFuture<ResponseEntity<Ship>> deleteShip(@PathVariable("id") Long id) {
+
+        if (id == 0) return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+
+        return async(() -> {
+            if (!shipService.deleteShip(id)) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
+
+    @DeleteMapping(value = "/ships")
+    public CompletableFuture<ResponseEntity<Integer>> deleteShips(
+            @RequestParam(name = "name", required = false) String name,
+            @RequestParam(name = "planet", required = false) String planet,
+            @RequestParam(name = "shipType", required = false) ShipType shipType,
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "before", required = false) Long before,
+            @RequestParam(name = "isUsed", required = false) Boolean isUsed,
+            @RequestParam(name = "minSpeed", required = false) Double minSpeed,
+            @RequestParam(name = "maxSpeed", required = false) Double maxSpeed,
+            @RequestParam(name = "minCrewSize", required = false) Integer minCrewSize,
+            @RequestParam(name = "maxCrewSize", required = false) Integer maxCrewSize,
+            @RequestParam(name = "minRating", required = false) Double minRating,
+            @RequestParam(name = "maxRating", required = false) Double maxRating
+    ) {
+
+        ShipFilter filter = new ShipFilter(
+                name, planet, shipType,
+                after, before,
+                isUsed,
+                minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize,
+                minRating, maxRating);
 
-        if (id == 0) return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        if (filter.isEmpty()) return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
 
-        Ship ship = shipService.getShipById(id);
+        return async(() -> ResponseEntity.ok(shipService.deleteShips(filter)));
+    }
 
-        if (ship == null) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    @PostMapping(value = "/ships/bulk-update")
+    public CompletableFuture<ResponseEntity<Integer>> updateShips(
+            @RequestBody Ship ship,
+            @RequestParam(name = "name", required = false) String name,
+            @RequestParam(name = "planet", required = false) String planet,
+            @RequestParam(name = "shipType", required = false) ShipType shipType,
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "before", required = false) Long before,
+            @RequestParam(name = "isUsed", required = false) Boolean isUsed,
+            @RequestParam(name = "minSpeed", required = false) Double minSpeed,
+            @RequestParam(name = "maxSpeed", required = false) Double maxSpeed,
+            @RequestParam(name = "minCrewSize", required = false) Integer minCrewSize,
+            @RequestParam(name = "maxCrewSize", required = false) Integer maxCrewSize,
+            @RequestParam(name = "minRating", required = false) Double minRating,
+            @RequestParam(name = "maxRating", required = false) Double maxRating
+    ) {
+
+        ShipFilter filter = new ShipFilter(
+                name, planet, shipType,
+                after, before,
+                isUsed,
+                minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize,
+                minRating, maxRating);
 
-        shipService.deleteShip(id);
+        return async(() -> {
+            try {
+                return ResponseEntity.ok(shipService.updateShips(filter, ship));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
 
-        return new ResponseEntity<>(HttpStatus.OK);
+    /**
+     * Пул обработки запросов и его очередь заполнены: клиенту лучше повторить запрос позже,
+     * чем ждать в бесконечной очереди
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
 
+    /**
+     * Способ чтения, указанный в запросе, иначе заданный свойством read.jdbc.enabled
+     */
+    private boolean isJdbc(ShipReader reader) {
+        return reader == null ? shipService.isJdbcReadEnabled() : reader == ShipReader.JDBC;
     }
 
+    private <T> CompletableFuture<T> async(Supplier<T> action) {
+        return CompletableFuture.supplyAsync(action, requestExecutor);
+    }
 
+    private Ship readShip(JsonNode ship) {
+        if (ship == null || !ship.isObject()) return null;
+        try {
+            return objectMapper.treeToValue(ship, Ship.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
 }
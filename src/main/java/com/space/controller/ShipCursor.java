@@ -0,0 +1,136 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Курсор для постраничного вывода кораблей методом keyset (seek) пагинации
+ * <p>
+ * Курсор хранит порядок сортировки, значение поля сортировки и идентификатор
+ * последнего корабля предыдущей страницы. Клиент получает курсор в виде
+ * непрозрачной строки и передает его обратно для получения следующей страницы.
+ * <p>
+ * Столбцы сортировки допускают NULL, такое значение кодируется пустой строкой. MySQL и H2 при сортировке
+ * по возрастанию ставят NULL первыми, так же продолжает выборку
+ * {@link com.space.Specification.ShipSpecification#getAfterKeySpecification}.
+ */
+public class ShipCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final ShipOrder order;
+    private final Comparable<?> sortValue;
+    private final Long id;
+
+    private ShipCursor(ShipOrder order, Comparable<?> sortValue, Long id) {
+        this.order = order;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Метод создает курсор, указывающий на переданный корабль
+     *
+     * @param order порядок сортировки
+     * @param ship  последний корабль текущей страницы
+     * @return возвращает курсор для получения следующей страницы
+     */
+    public static ShipCursor of(ShipOrder order, Ship ship) {
+        switch (order) {
+            case SPEED:
+                return new ShipCursor(order, ship.getSpeed(), ship.getId());
+            case DATE:
+                return new ShipCursor(order, copy(ship.getProdDate()), ship.getId());
+            case RATING:
+                return new ShipCursor(order, ship.getRating(), ship.getId());
+            default:
+                return new ShipCursor(order, ship.getId(), ship.getId());
+        }
+    }
+
+    /**
+     * Метод создает курсор, указывающий на корабль, выбранный с частью полей
+     *
+     * @param order порядок сортировки
+     * @param ship  последний корабль текущей страницы, должен содержать поле id и поле сортировки
+     * @return возвращает курсор для получения следующей страницы
+     */
+    public static ShipCursor of(ShipOrder order, Map<String, Object> ship) {
+        Long id = (Long) ship.get("id");
+        switch (order) {
+            case SPEED:
+            case RATING:
+                return new ShipCursor(order, (Double) ship.get(order.getFieldName()), id);
+            case DATE:
+                return new ShipCursor(order, copy((Date) ship.get(order.getFieldName())), id);
+            default:
+                return new ShipCursor(order, id, id);
+        }
+    }
+
+    /**
+     * Метод восстанавливает курсор из строки, полученной от клиента
+     *
+     * @param value строковое представление курсора
+     * @return возвращает курсор
+     * @throws IllegalArgumentException если строка не является корректным курсором
+     */
+    public static ShipCursor decode(String value) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+
+        String[] parts = decoded.split(SEPARATOR);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+
+        ShipOrder order = ShipOrder.valueOf(parts[0]);
+        Long id = Long.valueOf(parts[2]);
+        String sortValue = parts[1];
+        switch (order) {
+            case SPEED:
+            case RATING:
+                return new ShipCursor(order, sortValue.isEmpty() ? null : Double.valueOf(sortValue), id);
+            case DATE:
+                return new ShipCursor(order, sortValue.isEmpty() ? null : new Date(Long.parseLong(sortValue)), id);
+            default:
+                return new ShipCursor(order, id, id);
+        }
+    }
+
+    /**
+     * Метод кодирует курсор в непрозрачную строку для передачи клиенту
+     *
+     * @return возвращает строковое представление курсора
+     */
+    public String encode() {
+        String value = sortValue == null ? ""
+                : sortValue instanceof Date ? String.valueOf(((Date) sortValue).getTime()) : String.valueOf(sortValue);
+        String raw = order.name() + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    public Comparable<?> getSortValue() {
+        return sortValue;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
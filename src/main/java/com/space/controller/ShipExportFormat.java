@@ -0,0 +1,16 @@
+package com.space.controller;
+
+public enum ShipExportFormat {
+    NDJSON(ShipController.APPLICATION_NDJSON_VALUE), // default
+    CSV("text/csv");
+
+    private String contentType;
+
+    ShipExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
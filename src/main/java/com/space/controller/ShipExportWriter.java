@@ -0,0 +1,122 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.space.model.Ship;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Запись выгружаемых кораблей в поток ответа
+ * <p>
+ * Каждый корабль записывается сразу после чтения из БД, поэтому в памяти не накапливается
+ * ни список кораблей, ни тело ответа.
+ */
+public abstract class ShipExportWriter implements Consumer<Ship> {
+
+    /**
+     * Метод создает запись кораблей в указанном формате
+     *
+     * @param format       формат выгрузки
+     * @param objectMapper используется для записи кораблей в формате NDJSON
+     * @param out          поток ответа
+     * @return возвращает запись кораблей
+     */
+    public static ShipExportWriter of(ShipExportFormat format, ObjectMapper objectMapper, OutputStream out) throws IOException {
+        return format == ShipExportFormat.CSV ? new Csv(out) : new Ndjson(objectMapper, out);
+    }
+
+    @Override
+    public void accept(Ship ship) {
+        try {
+            write(ship);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void write(Ship ship) throws IOException;
+
+    /**
+     * Метод дописывает буферизованные данные в поток ответа
+     */
+    public abstract void finish() throws IOException;
+
+    private static class Ndjson extends ShipExportWriter {
+
+        private final SequenceWriter writer;
+
+        private Ndjson(ObjectMapper objectMapper, OutputStream out) throws IOException {
+            this.writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out);
+        }
+
+        @Override
+        protected void write(Ship ship) throws IOException {
+            writer.write(ship);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static class Csv extends ShipExportWriter {
+
+        private static final String HEADER = "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating";
+
+        private final Writer writer;
+
+        private Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        protected void write(Ship ship) throws IOException {
+            writer.write(String.valueOf(ship.getId()));
+            writer.write(',');
+            writer.write(escape(ship.getName()));
+            writer.write(',');
+            writer.write(escape(ship.getPlanet()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getShipType()));
+            writer.write(',');
+            writer.write(ship.getProdDate() == null ? "" : String.valueOf(ship.getProdDate().getTime()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getUsed()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getSpeed()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getCrewSize()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getRating()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value == null) return "";
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.space.controller;
+
+public enum ShipReader {
+    JPA, // default, если не задано свойство read.jdbc.enabled
+    JDBC
+}
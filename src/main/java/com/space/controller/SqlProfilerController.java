@@ -0,0 +1,51 @@
+package com.space.controller;
+
+import com.space.metrics.SqlProfiler;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+
+@RestController
+@RequestMapping(value = "/admin/sql")
+public class SqlProfilerController {
+
+    private final SqlProfiler sqlProfiler;
+
+    public SqlProfilerController(SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+
+    /**
+     * Группы SQL запросов по тексту, набору параметров, методу контроллера и набору параметров фильтра
+     * по убыванию общего времени выполнения
+     */
+    @GetMapping(value = "/statements")
+    public ResponseEntity<List<SqlProfiler.SqlStatementStats>> getStatements(
+            @RequestParam(name = "limit", required = false, defaultValue = "50") Integer limit) {
+
+        if (limit < 1) return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+
+        return new ResponseEntity<>(sqlProfiler.getStatements(limit), HttpStatus.OK);
+    }
+
+
+    @GetMapping(value = "/slow")
+    public ResponseEntity<List<SqlProfiler.SlowSqlStatement>> getSlowStatements() {
+        return new ResponseEntity<>(sqlProfiler.getSlowStatements(), HttpStatus.OK);
+    }
+
+
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        sqlProfiler.reset();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+}
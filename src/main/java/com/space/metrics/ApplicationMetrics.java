@@ -0,0 +1,49 @@
+package com.space.metrics;
+
+import com.space.service.ShipListCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Регистрирует в {@link MeterRegistry} метрики пула соединений, кэша второго уровня Hibernate
+ * и кэша списков кораблей, которые накапливают {@link ConnectionPoolMetrics},
+ * {@link SecondLevelCacheMetrics} и {@link ShipListCache}
+ */
+public class ApplicationMetrics implements MeterBinder {
+
+    private final ConnectionPoolMetrics pool;
+    private final SecondLevelCacheMetrics secondLevelCache;
+    private final ShipListCache listCache;
+
+    public ApplicationMetrics(ConnectionPoolMetrics pool, SecondLevelCacheMetrics secondLevelCache, ShipListCache listCache) {
+        this.pool = pool;
+        this.secondLevelCache = secondLevelCache;
+        this.listCache = listCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.pool.connections.active", pool, ConnectionPoolMetrics::getActiveConnections).register(registry);
+        Gauge.builder("db.pool.connections.idle", pool, ConnectionPoolMetrics::getIdleConnections).register(registry);
+        Gauge.builder("db.pool.connections.pending", pool, ConnectionPoolMetrics::getPendingThreads).register(registry);
+        Gauge.builder("db.pool.acquire.max", pool, ConnectionPoolMetrics::getMaxWaitMicros).baseUnit("microseconds").register(registry);
+        FunctionCounter.builder("db.pool.acquired", pool, ConnectionPoolMetrics::getAcquiredCount).register(registry);
+        FunctionCounter.builder("db.pool.timeouts", pool, ConnectionPoolMetrics::getTimeoutCount).register(registry);
+
+        FunctionCounter.builder("cache.gets", secondLevelCache, SecondLevelCacheMetrics::getShipHitCount)
+                .tags("cache", "ship", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", secondLevelCache, SecondLevelCacheMetrics::getShipMissCount)
+                .tags("cache", "ship", "result", "miss").register(registry);
+        FunctionCounter.builder("cache.gets", secondLevelCache, SecondLevelCacheMetrics::getQueryHitCount)
+                .tags("cache", "query", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", secondLevelCache, SecondLevelCacheMetrics::getQueryMissCount)
+                .tags("cache", "query", "result", "miss").register(registry);
+        FunctionCounter.builder("cache.gets", listCache, ShipListCache::getHitCount)
+                .tags("cache", "list", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", listCache, ShipListCache::getMissCount)
+                .tags("cache", "list", "result", "miss").register(registry);
+        Gauge.builder("cache.size", listCache, ShipListCache::getSize).tags("cache", "list").register(registry);
+    }
+}
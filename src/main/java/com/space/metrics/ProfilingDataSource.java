@@ -0,0 +1,238 @@
+package com.space.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Источник соединений, который замеряет каждый SQL запрос и передает его в {@link SqlProfiler}
+ * <p>
+ * Соединения, запросы и результаты запросов оборачиваются в динамические прокси. Для запроса запоминаются
+ * типы параметров по вызовам setXxx, время выполнения execute* вместе со временем чтения строк
+ * через ResultSet.next() и количество прочитанных или измененных строк. Запрос с результатом учитывается
+ * при закрытии ResultSet или самого запроса, поэтому обработка строк приложением в его время не входит.
+ */
+public class ProfilingDataSource extends DelegatingDataSource implements Closeable {
+
+    private final SqlProfiler profiler;
+
+    public ProfilingDataSource(DataSource target, SqlProfiler profiler) {
+        super(target);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    /**
+     * Закрывает пул соединений или встроенную БД, вместо которых зарегистрирован этот источник
+     */
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof EmbeddedDatabase) {
+            ((EmbeddedDatabase) target).shutdown();
+        } else if (target instanceof Closeable) {
+            ((Closeable) target).close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ProfilingDataSource.invoke(target, method, args);
+
+            Class<?> type = method.getReturnType();
+            if (type == Statement.class || type == PreparedStatement.class || type == CallableStatement.class) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+        private final List<String> binds = new ArrayList<>();
+        private int batchSize;
+        private Execution pending;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (args != null && args.length >= 2 && args[0] instanceof Integer && name.startsWith("set")) {
+                // для setObject тип берется по значению, как его увидит драйвер
+                bind((Integer) args[0], name.equals("setObject") && args[1] != null
+                        ? args[1].getClass().getSimpleName() : name.substring(3));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if (name.equals("addBatch") || name.equals("clearBatch")) {
+                batchSize = name.equals("addBatch") ? batchSize + 1 : 0;
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            } else if (name.equals("getResultSet")) {
+                ResultSet resultSet = (ResultSet) ProfilingDataSource.invoke(target, method, args);
+                return resultSet == null || pending == null ? resultSet : pending.wrap(resultSet);
+            } else if (name.equals("close")) {
+                finish();
+            }
+
+            return ProfilingDataSource.invoke(target, method, args);
+        }
+
+        private void bind(int index, String type) {
+            while (binds.size() < index) binds.add("?");
+            binds.set(index - 1, type);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finish();
+            String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            String shape = binds.isEmpty() ? "()" : "(" + String.join(", ", binds) + ")";
+            if (method.getName().startsWith("executeBatch") || method.getName().startsWith("executeLargeBatch")) {
+                shape += " x" + batchSize;
+                batchSize = 0;
+            }
+
+            long start = System.nanoTime();
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            Execution execution = new Execution(text, shape, System.nanoTime() - start);
+
+            if (result instanceof ResultSet) {
+                pending = execution;
+                return execution.wrap((ResultSet) result);
+            } else if (result instanceof Boolean) {
+                if ((Boolean) result) {
+                    pending = execution;
+                } else {
+                    execution.rows = target.getUpdateCount();
+                    execution.record();
+                }
+            } else {
+                execution.rows = rows(result);
+                execution.record();
+            }
+            return result;
+        }
+
+        private void finish() {
+            if (pending != null) pending.record();
+            pending = null;
+        }
+
+        private long rows(Object result) {
+            if (result instanceof Number) return ((Number) result).longValue();
+
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+            return rows;
+        }
+    }
+
+    private final class Execution {
+
+        private final String sql;
+        private final String binds;
+        private long nanos;
+        private long rows;
+        private boolean recorded;
+
+        Execution(String sql, String binds, long nanos) {
+            this.sql = sql;
+            this.binds = binds;
+            this.nanos = nanos;
+        }
+
+        ResultSet wrap(ResultSet resultSet) {
+            return (ResultSet) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, this));
+        }
+
+        void record() {
+            if (recorded) return;
+            recorded = true;
+            profiler.record(sql, binds, nanos, rows);
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet target, Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                Object hasNext = ProfilingDataSource.invoke(target, method, args);
+                execution.nanos += System.nanoTime() - start;
+                if ((Boolean) hasNext) execution.rows++;
+                return hasNext;
+            }
+            if (name.equals("close")) execution.record();
+
+            return ProfilingDataSource.invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.space.metrics;
+
+import com.space.controller.ShipOrder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики HTTP запросов к /rest
+ * <p>
+ * Для каждого запроса записывает время выполнения в таймер http.server.requests и количество
+ * SQL запросов в http.server.requests.sql. Метки таймера - метод, шаблон пути, статус ответа,
+ * сортировка {@link ShipOrder} и набор указанных параметров фильтра, например "isUsed,shipType".
+ * Значения параметров в метки не попадают, поэтому количество временных рядов ограничено.
+ * Процентили считаются по HDR гистограмме внутри приложения.
+ * Метод контроллера и набор параметров фильтра передаются в {@link SqlProfiler} как источник SQL запросов.
+ * При асинхронной обработке время считается от приема запроса до конца повторной диспетчеризации,
+ * а SQL запросы - по счетчику запроса, который {@link RequestMetricsTaskDecorator} передает в пул обработки.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String REQUESTS_METRIC = "http.server.requests";
+    public static final String SQL_METRIC = "http.server.requests.sql";
+
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+    private static final String SQL_COUNT_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".sqlCount";
+    private static final String[] FILTER_PARAMS = {"name", "planet", "shipType", "after", "before", "isUsed",
+            "minSpeed", "maxSpeed", "minCrewSize", "maxCrewSize", "minRating", "maxRating"};
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final SqlStatementCounter sqlStatementCounter;
+    private final SqlProfiler sqlProfiler;
+
+    public RequestMetricsInterceptor(MeterRegistry registry, SqlStatementCounter sqlStatementCounter, SqlProfiler sqlProfiler) {
+        this.registry = registry;
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // повторная диспетчеризация после асинхронной обработки продолжает уже начатый замер
+        if (request.getDispatcherType() == DispatcherType.ASYNC) return true;
+
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        sqlStatementCounter.reset();
+        request.setAttribute(SQL_COUNT_ATTRIBUTE, sqlStatementCounter.current());
+        sqlProfiler.setSource(getHandlerName(handler), getFilterShape(request));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        sqlProfiler.clearSource();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        sqlProfiler.clearSource();
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) return;
+        long elapsed = System.nanoTime() - (Long) start;
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+
+        Timer.builder(REQUESTS_METRIC)
+                .tags(Tags.of("method", request.getMethod(), "uri", uri, "status", String.valueOf(status),
+                        "order", getOrder(request), "filter", getFilterShape(request)))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        DistributionSummary.builder(SQL_METRIC)
+                .tags("method", request.getMethod(), "uri", uri)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry)
+                .record(getSqlCount(request));
+    }
+
+    private int getSqlCount(HttpServletRequest request) {
+        Object counter = request.getAttribute(SQL_COUNT_ATTRIBUTE);
+        return counter == null ? sqlStatementCounter.get() : ((int[]) counter)[0];
+    }
+
+    private static String getHandlerName(Object handler) {
+        if (!(handler instanceof HandlerMethod)) return NONE;
+
+        HandlerMethod method = (HandlerMethod) handler;
+        return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+    }
+
+    private static String getOrder(HttpServletRequest request) {
+        String order = request.getParameter("order");
+        if (order == null) return NONE;
+
+        for (ShipOrder value : ShipOrder.values()) {
+            if (value.name().equals(order)) return order;
+        }
+        return NONE;
+    }
+
+    /**
+     * @return возвращает имена указанных параметров фильтра через запятую в постоянном порядке
+     */
+    private static String getFilterShape(HttpServletRequest request) {
+        StringBuilder shape = new StringBuilder();
+        for (String param : FILTER_PARAMS) {
+            String value = request.getParameter(param);
+            if (value == null || value.isEmpty()) continue;
+
+            if (shape.length() > 0) shape.append(',');
+            shape.append(param);
+        }
+        return shape.length() == 0 ? NONE : shape.toString();
+    }
+}
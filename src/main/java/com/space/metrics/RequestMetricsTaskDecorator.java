@@ -0,0 +1,37 @@
+package com.space.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Передает в поток асинхронной обработки HTTP запроса счетчик SQL запросов и источник для {@link SqlProfiler}
+ * <p>
+ * Оба хранятся в ThreadLocal потока, который принял запрос. Без передачи SQL запросы, выполненные
+ * в пуле обработки, не попали бы ни в метрику http.server.requests.sql, ни в группу своего метода контроллера.
+ */
+public class RequestMetricsTaskDecorator implements TaskDecorator {
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final SqlProfiler sqlProfiler;
+
+    public RequestMetricsTaskDecorator(SqlStatementCounter sqlStatementCounter, SqlProfiler sqlProfiler) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        int[] counter = sqlStatementCounter.current();
+        String[] source = sqlProfiler.getSource();
+
+        return () -> {
+            sqlStatementCounter.use(counter);
+            sqlProfiler.setSource(source);
+            try {
+                runnable.run();
+            } finally {
+                sqlStatementCounter.clear();
+                sqlProfiler.clearSource();
+            }
+        };
+    }
+}
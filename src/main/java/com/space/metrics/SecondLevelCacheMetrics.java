@@ -0,0 +1,75 @@
+package com.space.metrics;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Метрики кэша второго уровня Hibernate
+ * <p>
+ * Возвращает количество попаданий, промахов и записей в регион кэша кораблей
+ * и в регион кэша результатов запросов. Значения берутся из статистики Hibernate,
+ * поэтому считаются только при включенном свойстве cache.statistics.enabled,
+ * при выключенном кэше все значения равны нулю.
+ */
+public class SecondLevelCacheMetrics {
+
+    public static final String SHIP_REGION = "com.space.model.Ship";
+    public static final String QUERY_REGION = "default-query-results-region";
+
+    private final Statistics statistics;
+
+    public SecondLevelCacheMetrics(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public long getShipHitCount() {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(SHIP_REGION);
+        return region == null ? 0 : region.getHitCount();
+    }
+
+    public long getShipMissCount() {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(SHIP_REGION);
+        return region == null ? 0 : region.getMissCount();
+    }
+
+    public long getShipPutCount() {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(SHIP_REGION);
+        return region == null ? 0 : region.getPutCount();
+    }
+
+    /**
+     * @return возвращает долю попаданий в кэш кораблей от 0 до 1
+     */
+    public double getShipHitRatio() {
+        return hitRatio(statistics.getCacheRegionStatistics(SHIP_REGION));
+    }
+
+    public long getQueryHitCount() {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(QUERY_REGION);
+        return region == null ? 0 : region.getHitCount();
+    }
+
+    public long getQueryMissCount() {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(QUERY_REGION);
+        return region == null ? 0 : region.getMissCount();
+    }
+
+    public long getQueryPutCount() {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(QUERY_REGION);
+        return region == null ? 0 : region.getPutCount();
+    }
+
+    /**
+     * @return возвращает долю попаданий в кэш результатов запросов от 0 до 1
+     */
+    public double getQueryHitRatio() {
+        return hitRatio(statistics.getCacheRegionStatistics(QUERY_REGION));
+    }
+
+    private static double hitRatio(CacheRegionStatistics region) {
+        if (region == null) return 0;
+
+        long total = region.getHitCount() + region.getMissCount();
+        return total == 0 ? 0 : region.getHitCount() / (double) total;
+    }
+}
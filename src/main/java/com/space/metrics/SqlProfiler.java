@@ -0,0 +1,321 @@
+package com.space.metrics;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Профилировщик SQL запросов
+ * <p>
+ * Получает от {@link ProfilingDataSource} текст каждого выполненного SQL запроса, набор типов его параметров,
+ * время выполнения и количество строк. Запросы группируются по тексту, набору параметров и источнику -
+ * методу контроллера и набору параметров фильтра HTTP запроса, в котором они выполнены.
+ * Запросы дольше порога дополнительно попадают в журнал медленных запросов ограниченного размера.
+ */
+public class SqlProfiler {
+
+    private static final String NONE = "none";
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final int slowLogSize;
+    private final int maxStatements;
+
+    private final ThreadLocal<String[]> source = new ThreadLocal<>();
+    private final ConcurrentMap<Key, Accumulator> statements = new ConcurrentHashMap<>();
+    private final ArrayDeque<SlowSqlStatement> slowLog = new ArrayDeque<>();
+    private final LongAdder droppedCount = new LongAdder();
+
+    public SqlProfiler(boolean enabled, long slowThresholdMillis, int slowLogSize, int maxStatements) {
+        this.enabled = enabled;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowLogSize = slowLogSize;
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Метод оборачивает источник соединений, если профилирование включено
+     *
+     * @param dataSource источник соединений с БД
+     * @return возвращает источник соединений, который передает выполненные запросы в профилировщик
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return enabled ? new ProfilingDataSource(dataSource, this) : dataSource;
+    }
+
+    /**
+     * Метод запоминает источник SQL запросов текущего потока до вызова {@link #clearSource()}
+     *
+     * @param handler метод контроллера, например ShipController.getAllShips
+     * @param filter  имена указанных параметров фильтра через запятую
+     */
+    public void setSource(String handler, String filter) {
+        source.set(new String[]{handler, filter});
+    }
+
+    public void clearSource() {
+        source.remove();
+    }
+
+    String[] getSource() {
+        return source.get();
+    }
+
+    void setSource(String[] value) {
+        if (value == null) source.remove();
+        else source.set(value);
+    }
+
+    /**
+     * Метод учитывает выполненный SQL запрос
+     *
+     * @param sql   текст запроса
+     * @param binds типы параметров запроса, для пакета с количеством наборов параметров
+     * @param nanos время выполнения и чтения результата в наносекундах
+     * @param rows  количество прочитанных или измененных строк
+     */
+    void record(String sql, String binds, long nanos, long rows) {
+        String[] current = source.get();
+        String handler = current == null ? NONE : current[0];
+        String filter = current == null ? NONE : current[1];
+
+        Key key = new Key(sql, binds, handler, filter);
+        Accumulator stats = statements.get(key);
+        if (stats == null) {
+            if (statements.size() >= maxStatements) {
+                droppedCount.increment();
+            } else {
+                stats = statements.computeIfAbsent(key, k -> new Accumulator());
+            }
+        }
+
+        boolean slow = nanos >= slowThresholdNanos;
+        if (stats != null) stats.add(nanos, rows, slow);
+        if (slow) logSlow(new SlowSqlStatement(sql, binds, handler, filter, nanos, rows));
+    }
+
+    private void logSlow(SlowSqlStatement statement) {
+        synchronized (slowLog) {
+            if (slowLog.size() >= slowLogSize) slowLog.pollLast();
+            slowLog.addFirst(statement);
+        }
+    }
+
+    /**
+     * @param limit максимальное количество групп
+     * @return возвращает группы запросов по убыванию общего времени выполнения
+     */
+    public List<SqlStatementStats> getStatements(int limit) {
+        return statements.entrySet().stream()
+                .map(entry -> new SqlStatementStats(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingDouble(SqlStatementStats::getTotalMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return возвращает медленные запросы, начиная с последнего
+     */
+    public List<SlowSqlStatement> getSlowStatements() {
+        synchronized (slowLog) {
+            return new ArrayList<>(slowLog);
+        }
+    }
+
+    /**
+     * @return возвращает количество запросов, не учтенных из-за ограничения количества групп
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public void reset() {
+        statements.clear();
+        droppedCount.reset();
+        synchronized (slowLog) {
+            slowLog.clear();
+        }
+    }
+
+    /**
+     * Статистика группы одинаковых SQL запросов одного источника на момент запроса
+     */
+    public static class SqlStatementStats {
+
+        private final String sql;
+        private final String binds;
+        private final String handler;
+        private final String filter;
+        private final long count;
+        private final long slowCount;
+        private final double totalMillis;
+        private final double averageMillis;
+        private final double maxMillis;
+        private final long rows;
+
+        SqlStatementStats(Key key, Accumulator accumulator) {
+            this.sql = key.sql;
+            this.binds = key.binds;
+            this.handler = key.handler;
+            this.filter = key.filter;
+            this.count = accumulator.count.sum();
+            this.slowCount = accumulator.slowCount.sum();
+            this.totalMillis = accumulator.totalNanos.sum() / 1e6;
+            this.averageMillis = count == 0 ? 0 : totalMillis / count;
+            this.maxMillis = accumulator.maxNanos.get() / 1e6;
+            this.rows = accumulator.rows.sum();
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getBinds() {
+            return binds;
+        }
+
+        public String getHandler() {
+            return handler;
+        }
+
+        public String getFilter() {
+            return filter;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSlowCount() {
+            return slowCount;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getAverageMillis() {
+            return averageMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+
+    /**
+     * Запись журнала медленных SQL запросов
+     */
+    public static class SlowSqlStatement {
+
+        private final Date executedAt = new Date();
+        private final String sql;
+        private final String binds;
+        private final String handler;
+        private final String filter;
+        private final double millis;
+        private final long rows;
+
+        SlowSqlStatement(String sql, String binds, String handler, String filter, long nanos, long rows) {
+            this.sql = sql;
+            this.binds = binds;
+            this.handler = handler;
+            this.filter = filter;
+            this.millis = nanos / 1e6;
+            this.rows = rows;
+        }
+
+        public Date getExecutedAt() {
+            return executedAt;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getBinds() {
+            return binds;
+        }
+
+        public String getHandler() {
+            return handler;
+        }
+
+        public String getFilter() {
+            return filter;
+        }
+
+        public double getMillis() {
+            return millis;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+
+    private static final class Accumulator {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+
+        void add(long nanos, long rows, boolean slow) {
+            count.increment();
+            if (slow) slowCount.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (rows > 0) this.rows.add(rows);
+        }
+    }
+
+    private static final class Key {
+
+        private final String sql;
+        private final String binds;
+        private final String handler;
+        private final String filter;
+        private final int hash;
+
+        Key(String sql, String binds, String handler, String filter) {
+            this.sql = sql;
+            this.binds = binds;
+            this.handler = handler;
+            this.filter = filter;
+            this.hash = Objects.hash(sql, binds, handler, filter);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash
+                    && Objects.equals(sql, key.sql)
+                    && Objects.equals(binds, key.binds)
+                    && Objects.equals(handler, key.handler)
+                    && Objects.equals(filter, key.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
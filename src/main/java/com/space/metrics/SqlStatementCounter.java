@@ -0,0 +1,43 @@
+package com.space.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Счетчик SQL запросов текущего потока
+ * <p>
+ * Регистрируется в Hibernate как {@link StatementInspector}, через который проходит каждый SQL запрос
+ * перед подготовкой, поэтому считает запросы одного HTTP запроса между {@link #reset()} и {@link #get()}.
+ * Каждый {@link #reset()} начинает новый счетчик, который {@link RequestMetricsTaskDecorator} передает
+ * в поток асинхронной обработки запроса.
+ * Запросы, выполняемые напрямую через JDBC в Session.doWork, не считаются.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    public void reset() {
+        count.set(new int[1]);
+    }
+
+    public int get() {
+        return count.get()[0];
+    }
+
+    int[] current() {
+        return count.get();
+    }
+
+    void use(int[] counter) {
+        count.set(counter);
+    }
+
+    void clear() {
+        count.remove();
+    }
+}
@@ -0,0 +1,134 @@
+package com.space.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.Date;
+
+/**
+ * Состояние задачи пересчета рейтинга кораблей
+ * <p>
+ * Хранит позицию последней обработанной порции (lastId) и счетчики обработанных и измененных кораблей.
+ * Запись сохраняется в одной транзакции с рейтингами порции, поэтому после аварийной остановки
+ * задача продолжается со следующей порции, а уже пересчитанные корабли повторно не обрабатываются.
+ */
+@Entity
+@Table(name = "rating_recalculation")
+public class RatingRecalculation {
+
+    public enum Status {
+        RUNNING,
+        FINISHED,
+        FAILED
+    }
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(name = "last_id")
+    private long lastId;
+
+    @Column(name = "total")
+    private long total;
+
+    @Column(name = "processed")
+    private long processed;
+
+    @Column(name = "updated")
+    private long updated;
+
+    @Column(name = "started_at")
+    private Date startedAt;
+
+    @Column(name = "finished_at")
+    private Date finishedAt;
+
+    @Column(name = "error")
+    private String error;
+
+    protected RatingRecalculation() {
+    }
+
+    public RatingRecalculation(String id, long total) {
+        this.id = id;
+        this.status = Status.RUNNING;
+        this.total = total;
+        this.startedAt = new Date();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * @return возвращает причину остановки задачи со статусом FAILED, либо null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Метод сдвигает позицию задачи на обработанную порцию кораблей
+     *
+     * @param lastId    идентификатор последнего корабля порции
+     * @param processed количество кораблей в порции
+     * @param updated   количество кораблей порции, у которых изменился рейтинг
+     */
+    public void advance(long lastId, int processed, int updated) {
+        this.lastId = lastId;
+        this.processed += processed;
+        this.updated += updated;
+    }
+}
@@ -0,0 +1,76 @@
+package com.space.model;
+
+import java.util.Date;
+
+/**
+ * Ход выполнения задачи пересчета рейтинга кораблей
+ * <p>
+ * Снимок последнего зафиксированного состояния задачи и скорость обработки кораблей
+ * с момента ее последнего запуска в приложении.
+ */
+public class RatingRecalculationProgress {
+
+    private final boolean running;
+    private final RatingRecalculation.Status status;
+    private final long lastId;
+    private final long total;
+    private final long processed;
+    private final long updated;
+    private final double shipsPerSecond;
+    private final Date startedAt;
+    private final Date finishedAt;
+    private final String error;
+
+    public RatingRecalculationProgress(boolean running, RatingRecalculation state, double shipsPerSecond) {
+        this.running = running;
+        this.status = state.getStatus();
+        this.lastId = state.getLastId();
+        this.total = state.getTotal();
+        this.processed = state.getProcessed();
+        this.updated = state.getUpdated();
+        this.shipsPerSecond = shipsPerSecond;
+        this.startedAt = state.getStartedAt();
+        this.finishedAt = state.getFinishedAt();
+        this.error = state.getError();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public RatingRecalculation.Status getStatus() {
+        return status;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public double getShipsPerSecond() {
+        return shipsPerSecond;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,63 @@
+package com.space.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Результат пакетного создания кораблей
+ * <p>
+ * Содержит идентификаторы созданных кораблей в порядке их следования в запросе
+ * и ошибки по каждому не созданному кораблю с его порядковым номером в запросе.
+ */
+public class ShipBatchResult {
+
+    private int created;
+    private int failed;
+    private final List<Long> ids = new ArrayList<>();
+    private final List<Error> errors = new ArrayList<>();
+
+    public void addCreated(Long id) {
+        ids.add(id);
+        created++;
+    }
+
+    public void addError(int index, String message) {
+        errors.add(new Error(index, message));
+        failed++;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public List<Error> getErrors() {
+        return errors;
+    }
+
+    public static class Error {
+
+        private final int index;
+        private final String message;
+
+        public Error(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
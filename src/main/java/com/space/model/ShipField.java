@@ -0,0 +1,75 @@
+package com.space.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Поля корабля, которые можно запросить в параметре fields списка кораблей
+ * Имя поля совпадает с атрибутом сущности {@link Ship} и с ключом в JSON ответе
+ */
+public enum ShipField {
+    ID("id", Ship::getId),
+    NAME("name", Ship::getName),
+    PLANET("planet", Ship::getPlanet),
+    SHIP_TYPE("shipType", Ship::getShipType),
+    PROD_DATE("prodDate", Ship::getProdDate),
+    IS_USED("isUsed", Ship::getUsed),
+    SPEED("speed", Ship::getSpeed),
+    CREW_SIZE("crewSize", Ship::getCrewSize),
+    RATING("rating", Ship::getRating);
+
+    private final String fieldName;
+    private final Function<Ship, Object> getter;
+
+    ShipField(String fieldName, Function<Ship, Object> getter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Метод возвращает значение поля переданного корабля
+     *
+     * @param ship корабль
+     * @return возвращает значение поля
+     */
+    public Object getValue(Ship ship) {
+        return getter.apply(ship);
+    }
+
+    /**
+     * Метод возвращает поле по имени атрибута сущности
+     *
+     * @param fieldName имя поля
+     * @return возвращает поле
+     * @throws IllegalArgumentException если такого поля нет
+     */
+    public static ShipField of(String fieldName) {
+        for (ShipField field : values()) {
+            if (field.fieldName.equals(fieldName)) return field;
+        }
+        throw new IllegalArgumentException("Unknown ship field: " + fieldName);
+    }
+
+    /**
+     * Метод разбирает список полей, перечисленных через запятую
+     * Повторы отбрасываются, порядок полей сохраняется
+     *
+     * @param fields имена полей через запятую, например "id,name,rating"
+     * @return возвращает поля в порядке перечисления
+     * @throws IllegalArgumentException если список пуст или содержит неизвестное поле
+     */
+    public static List<ShipField> parse(String fields) {
+        List<ShipField> result = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            ShipField field = of(name.trim());
+            if (!result.contains(field)) result.add(field);
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
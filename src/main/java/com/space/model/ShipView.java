@@ -0,0 +1,72 @@
+package com.space.model;
+
+import java.util.Date;
+
+/**
+ * Неизменяемое представление корабля для чтения
+ * <p>
+ * Заполняется напрямую из строки результата JDBC запроса, минуя контекст персистентности Hibernate,
+ * поэтому не имеет снимка для проверки изменений и не может быть сохранено. Поля называются так же,
+ * как поля {@link Ship}, поэтому в JSON оба представления выглядят одинаково.
+ */
+public final class ShipView {
+
+    private final Long id;
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Date prodDate;
+    private final Boolean isUsed;
+    private final Double speed;
+    private final Integer crewSize;
+    private final Double rating;
+
+    public ShipView(Long id, String name, String planet, ShipType shipType, Date prodDate, Boolean isUsed,
+                    Double speed, Integer crewSize, Double rating) {
+        this.id = id;
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.prodDate = prodDate == null ? null : new Date(prodDate.getTime());
+        this.isUsed = isUsed;
+        this.speed = speed;
+        this.crewSize = crewSize;
+        this.rating = rating;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public Date getProdDate() {
+        return prodDate == null ? null : new Date(prodDate.getTime());
+    }
+
+    public Boolean getUsed() {
+        return isUsed;
+    }
+
+    public Double getSpeed() {
+        return speed;
+    }
+
+    public Integer getCrewSize() {
+        return crewSize;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+}
@@ -0,0 +1,9 @@
+package com.space.repository;
+
+import com.space.model.RatingRecalculation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RatingRecalculationRepository extends JpaRepository<RatingRecalculation, String> {
+}
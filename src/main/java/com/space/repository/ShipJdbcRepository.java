@@ -0,0 +1,164 @@
+package com.space.repository;
+
+import com.space.Specification.ShipFilter;
+import com.space.model.ShipField;
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Чтение кораблей обычным JDBC в обход Hibernate
+ * <p>
+ * Условия {@link com.space.Specification.ShipSpecification#getAllSpecification(ShipFilter)} переводятся
+ * в параметризованный SQL, строки результата разбираются по номеру столбца в неизменяемые {@link ShipView}.
+ * Контекст персистентности, снимки для проверки изменений и кэши Hibernate не используются.
+ */
+@Repository
+public class ShipJdbcRepository {
+
+    private static final String SELECT_SQL = "SELECT id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating "
+            + "FROM ship";
+
+    private static final RowMapper<ShipView> ROW_MAPPER = ShipJdbcRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShipJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Метод возвращает страницу кораблей согласно фильтра
+     *
+     * @param filter       параметры фильтра кораблей
+     * @param candidateIds отсортированные идентификаторы кораблей из индекса поиска по подстроке,
+     *                     null если индекс не сужает выборку
+     * @param pageable     параметры страницы и сортировки, сортировать можно только по полям {@link ShipField}
+     * @return возвращает корабли страницы
+     */
+    public List<ShipView> findPage(ShipFilter filter, long[] candidateIds, Pageable pageable) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> params = new ArrayList<>();
+        appendWhere(sql, params, filter, candidateIds);
+        appendOrderBy(sql, pageable.getSort());
+
+        sql.append(" LIMIT ? OFFSET ?");
+        params.add(pageable.getPageSize());
+        params.add(pageable.getOffset());
+
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, params.toArray());
+    }
+
+    /**
+     * Метод возвращает корабль по идентификатору
+     *
+     * @param id идентификатор корабля
+     * @return возвращает корабль, либо null, если корабль не найден
+     */
+    public ShipView findById(Long id) {
+        List<ShipView> ships = jdbcTemplate.query(SELECT_SQL + " WHERE id = ?", ROW_MAPPER, id);
+        return ships.isEmpty() ? null : ships.get(0);
+    }
+
+    private static void appendWhere(StringBuilder sql, List<Object> params, ShipFilter filter, long[] candidateIds) {
+        List<String> conditions = new ArrayList<>();
+
+        if (filter.getName() != null) {
+            conditions.add("name LIKE ?");
+            params.add("%" + filter.getName() + "%");
+        }
+        if (filter.getPlanet() != null) {
+            conditions.add("planet LIKE ?");
+            params.add("%" + filter.getPlanet() + "%");
+        }
+        if (filter.getShipType() != null) {
+            conditions.add("shipType = ?");
+            params.add(filter.getShipType().name());
+        }
+        addRange(conditions, params, "prodDate",
+                filter.getAfter() == null ? null : new Timestamp(filter.getAfter()),
+                filter.getBefore() == null ? null : new Timestamp(filter.getBefore()));
+        if (filter.getUsed() != null) {
+            conditions.add("isUsed = ?");
+            params.add(filter.getUsed());
+        }
+        addRange(conditions, params, "speed", filter.getMinSpeed(), filter.getMaxSpeed());
+        addRange(conditions, params, "crewSize", filter.getMinCrewSize(), filter.getMaxCrewSize());
+        addRange(conditions, params, "rating", filter.getMinRating(), filter.getMaxRating());
+
+        if (candidateIds != null) {
+            if (candidateIds.length == 0) {
+                conditions.add("1 = 0");
+            } else {
+                StringBuilder in = new StringBuilder("id IN (");
+                for (int i = 0; i < candidateIds.length; i++) {
+                    in.append(i == 0 ? "?" : ", ?");
+                    params.add(candidateIds[i]);
+                }
+                conditions.add(in.append(')').toString());
+            }
+        }
+
+        if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+    }
+
+    private static void addRange(List<String> conditions, List<Object> params, String column, Object min, Object max) {
+        if (min == null && max == null) return;
+        if (min == null) {
+            conditions.add(column + " <= ?");
+            params.add(max);
+        } else if (max == null) {
+            conditions.add(column + " >= ?");
+            params.add(min);
+        } else {
+            conditions.add(column + " BETWEEN ? AND ?");
+            params.add(min);
+            params.add(max);
+        }
+    }
+
+    /**
+     * Имена столбцов совпадают с полями корабля, поле проверяется через {@link ShipField#of(String)},
+     * поэтому в текст запроса попадают только известные имена
+     */
+    private static void appendOrderBy(StringBuilder sql, Sort sort) {
+        if (sort.isUnsorted()) return;
+
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(ShipField.of(order.getProperty()).getFieldName() + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        sql.append(" ORDER BY ").append(String.join(", ", orders));
+    }
+
+    private static ShipView mapRow(ResultSet rs, int rowNum) throws SQLException {
+        String shipType = rs.getString(4);
+        return new ShipView(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                shipType == null ? null : ShipType.valueOf(shipType),
+                rs.getTimestamp(5),
+                nullable(rs, rs.getBoolean(6)),
+                nullable(rs, rs.getDouble(7)),
+                nullable(rs, rs.getInt(8)),
+                nullable(rs, rs.getDouble(9)));
+    }
+
+    /**
+     * Значение примитивного типа читается без упаковки драйвером, NULL проверяется через wasNull
+     */
+    private static <T> T nullable(ResultSet rs, T value) throws SQLException {
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -1,16 +1,86 @@
 package com.space.repository;
 
 import com.space.model.Ship;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 
 /**
  * @author Ivan Kurilov on 18.06.2020
  */
 
 @Repository
-public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship>  {
+public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship>, ShipRepositoryCustom {
+
+    /**
+     * Метод возвращает список кораблей согласно фильтра
+     * Результат запроса хранится в кэше запросов Hibernate и сбрасывается при любом изменении таблицы ship
+     *
+     * @param spec фильтр кораблей
+     * @return возвращает список кораблей согласно фильтра
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Ship> findAll(Specification<Ship> spec);
+
+    /**
+     * Метод возвращает идентификаторы, наименования и планеты всех кораблей
+     * Используется для построения индекса поиска по подстроке без загрузки кораблей целиком
+     *
+     * @return возвращает строки вида [id, name, planet]
+     */
+    @Query("select s.id, s.name, s.planet from Ship s")
+    List<Object[]> findAllSearchFields();
+
+    /**
+     * Метод возвращает поля, от которых зависит рейтинг, для порции кораблей с id больше afterId
+     * Порции выбираются по первичному ключу без OFFSET, поэтому каждая следующая читается так же быстро, как первая
+     *
+     * @param afterId  идентификатор последнего корабля предыдущей порции
+     * @param pageable размер порции, номер страницы всегда 0
+     * @return возвращает строки вида [id, prodDate, isUsed, speed, rating] по возрастанию id
+     */
+    @Query("select s.id, s.prodDate, s.isUsed, s.speed, s.rating from Ship s where s.id > :afterId order by s.id")
+    List<Object[]> findRatingFields(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Метод возвращает поля, от которых зависит рейтинг, для кораблей с указанными идентификаторами
+     *
+     * @param ids идентификаторы кораблей
+     * @return возвращает строки вида [id, prodDate, isUsed, speed, rating]
+     */
+    @Query("select s.id, s.prodDate, s.isUsed, s.speed, s.rating from Ship s where s.id in :ids")
+    List<Object[]> findRatingFields(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Метод возвращает все поля всех кораблей в виде строк без создания сущностей
+     * Строки не проходят через кэши Hibernate, поэтому дата выпуска такая, какой ее хранит БД
+     *
+     * @return возвращает строки вида [id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating]
+     */
+    @Query("select s.id, s.name, s.planet, s.shipType, s.prodDate, s.isUsed, s.speed, s.crewSize, s.rating " +
+            "from Ship s")
+    List<Object[]> findAllReplicaFields();
 
+    /**
+     * Метод возвращает все поля кораблей с указанными идентификаторами, как {@link #findAllReplicaFields()}
+     *
+     * @param ids идентификаторы кораблей
+     * @return возвращает строки вида [id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating]
+     */
+    @Query("select s.id, s.name, s.planet, s.shipType, s.prodDate, s.isUsed, s.speed, s.crewSize, s.rating " +
+            "from Ship s where s.id in :ids")
+    List<Object[]> findReplicaFields(@Param("ids") Collection<Long> ids);
 }
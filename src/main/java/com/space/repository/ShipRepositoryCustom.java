@@ -0,0 +1,153 @@
+package com.space.repository;
+
+import com.space.Specification.ShipFilter;
+import com.space.model.Ship;
+import com.space.model.ShipField;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface ShipRepositoryCustom {
+
+    /**
+     * Метод получения страницы кораблей без подсчета общего количества
+     * Выбирается pageSize + 1 запись, наличие лишней записи означает, что есть следующая страница,
+     * поэтому на каждую страницу выполняется один SQL запрос
+     *
+     * @param spec     фильтр кораблей
+     * @param pageable параметры страницы и сортировки
+     * @return возвращает страницу кораблей с признаком наличия следующей страницы
+     */
+    Slice<Ship> findSlice(Specification<Ship> spec, Pageable pageable);
+
+    /**
+     * Метод получения страницы кораблей по шаблону запроса {@link com.space.Specification.ShipQueryTemplate}
+     * Текст запроса берется из кэша по набору указанных параметров фильтра, меняются только значения параметров.
+     * Если сортировку нельзя выразить шаблоном, запрос строится через {@link Specification}
+     *
+     * @param filter       параметры фильтра кораблей
+     * @param candidateIds идентификаторы кораблей из индекса поиска по подстроке, либо null
+     * @param pageable     параметры страницы и сортировки
+     * @return возвращает страницу кораблей с признаком наличия следующей страницы
+     */
+    Slice<Ship> findSlice(ShipFilter filter, long[] candidateIds, Pageable pageable);
+
+    /**
+     * Метод подсчитывает количество кораблей согласно фильтра по шаблону запроса
+     * {@link com.space.Specification.ShipQueryTemplate}
+     *
+     * @param filter       параметры фильтра кораблей
+     * @param candidateIds идентификаторы кораблей из индекса поиска по подстроке, либо null
+     * @return возвращает количество кораблей согласно фильтра
+     */
+    long count(ShipFilter filter, long[] candidateIds);
+
+    /**
+     * Метод получения страницы кораблей, в которой выбираются только указанные поля
+     * Запрос выбирает только столбцы этих полей, сущности не создаются и не попадают в контекст
+     * персистентности. Как и в {@link #findSlice(Specification, Pageable)}, выбирается pageSize + 1 запись
+     *
+     * @param spec     фильтр кораблей
+     * @param pageable параметры страницы и сортировки
+     * @param fields   выбираемые поля
+     * @return возвращает страницу кораблей, каждый корабль - словарь имени поля и значения в порядке fields
+     */
+    Slice<Map<String, Object>> findSliceFields(Specification<Ship> spec, Pageable pageable, List<ShipField> fields);
+
+    /**
+     * Метод подсчитывает количество кораблей согласно фильтра
+     * Заменяет {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor#count(Specification)},
+     * который не передает подсказки в COUNT запрос, поэтому результат не попадал в кэш запросов Hibernate
+     *
+     * @param spec фильтр кораблей
+     * @return возвращает количество кораблей согласно фильтра
+     */
+    long count(Specification<Ship> spec);
+
+    /**
+     * Метод пакетной вставки кораблей
+     * Корабли вставляются через JDBC пакетами по batchSize записей, идентификаторы выделяет БД
+     * и они записываются в переданные корабли. Если пакет не вставился, он повторяется по одной записи,
+     * чтобы ошибка одного корабля не отменяла вставку остальных
+     *
+     * @param ships     корабли для вставки
+     * @param batchSize количество записей в одном пакете
+     * @return возвращает ошибки вставки по позиции корабля в списке, для успешной вставки пустой словарь;
+     * текст ошибки постоянный и не содержит сообщения драйвера БД
+     */
+    Map<Integer, String> insertAll(List<Ship> ships, int batchSize);
+
+    /**
+     * Метод последовательно передает все корабли согласно фильтра в consumer
+     * Корабли читаются однонаправленным курсором с указанным размером выборки, после обработки
+     * каждый корабль отсоединяется от контекста, поэтому расход памяти не зависит от количества кораблей
+     *
+     * @param spec      фильтр кораблей
+     * @param sort      сортировка кораблей
+     * @param fetchSize количество записей, получаемых из БД за одно обращение
+     * @param consumer  обработка очередного корабля
+     */
+    void scrollAll(Specification<Ship> spec, Sort sort, int fetchSize, Consumer<Ship> consumer);
+
+    /**
+     * Метод возвращает идентификаторы кораблей согласно фильтра и блокирует их строки (SELECT ... FOR UPDATE)
+     * до конца транзакции, поэтому последующие изменения по этим идентификаторам затрагивают ровно найденные
+     * корабли, а параллельные транзакции не могут изменить их между выборкой и изменением
+     *
+     * @param spec фильтр кораблей
+     * @return возвращает идентификаторы кораблей
+     */
+    List<Long> findIdsForUpdate(Specification<Ship> spec);
+
+    /**
+     * Метод удаляет все корабли согласно фильтра одним запросом DELETE
+     *
+     * @param spec фильтр кораблей
+     * @return возвращает количество удаленных кораблей
+     */
+    int deleteAll(Specification<Ship> spec);
+
+    /**
+     * Метод обновляет все корабли согласно фильтра одним запросом UPDATE
+     * Изменяются только непустые поля patch, рейтинг не пересчитывается
+     *
+     * @param spec  фильтр кораблей
+     * @param patch корабль с новыми значениями полей
+     * @return возвращает количество обновленных кораблей
+     */
+    int updateAll(Specification<Ship> spec, Ship patch);
+
+    /**
+     * Метод удаляет корабли с указанными идентификаторами запросами DELETE ... WHERE id IN (...)
+     *
+     * @param ids идентификаторы кораблей
+     * @return возвращает количество удаленных кораблей
+     */
+    int deleteByIds(List<Long> ids);
+
+    /**
+     * Метод обновляет корабли с указанными идентификаторами запросами UPDATE ... WHERE id IN (...)
+     * Изменяются только непустые поля patch, рейтинг не пересчитывается
+     *
+     * @param ids   идентификаторы кораблей
+     * @param patch корабль с новыми значениями полей
+     * @return возвращает количество обновленных кораблей
+     */
+    int updateByIds(List<Long> ids, Ship patch);
+
+    /**
+     * Метод пакетно записывает пересчитанные рейтинги кораблей
+     * Рейтинг записывается, только если скорость, признак использования и дата производства
+     * не изменились с момента чтения, иначе его уже пересчитал тот, кто изменил корабль
+     *
+     * @param ships     корабли с id, исходными полями и новым рейтингом
+     * @param batchSize количество записей в одном пакете
+     * @return возвращает количество обновленных кораблей
+     */
+    int updateRatings(List<Ship> ships, int batchSize);
+}
@@ -0,0 +1,435 @@
+package com.space.repository;
+
+import com.space.Specification.ShipFilter;
+import com.space.Specification.ShipQueryTemplate;
+import com.space.Specification.ShipSpecification;
+import com.space.model.Ship;
+import com.space.model.ShipField;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class ShipRepositoryCustomImpl implements ShipRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO ship (name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_RATING_SQL = "UPDATE ship SET rating = ? "
+            + "WHERE id = ? AND speed = ? AND isUsed = ? AND prodDate = ?";
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final String SQL_STATE_CONSTRAINT_VIOLATION = "23";
+    private static final String CONSTRAINT_VIOLATION_ERROR = "Ship violates a database constraint";
+    private static final String INSERT_ERROR = "Ship can not be saved";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Ship> findSlice(Specification<Ship> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, cb));
+
+        List<Ship> ships = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .setHint(HINT_CACHEABLE, true)
+                .getResultList();
+
+        return toSlice(ships, pageable);
+    }
+
+    @Override
+    public Slice<Ship> findSlice(ShipFilter filter, long[] candidateIds, Pageable pageable) {
+        ShipQueryTemplate template = ShipQueryTemplate.of(filter, candidateIds, pageable.getSort());
+        if (template == null) return findSlice(getSpecification(filter, candidateIds), pageable);
+        if (candidateIds != null && candidateIds.length == 0) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+
+        List<Ship> ships = template.bind(entityManager.createQuery(template.getSelectQuery(), Ship.class), filter, candidateIds)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .setHint(HINT_CACHEABLE, true)
+                .getResultList();
+
+        return toSlice(ships, pageable);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findSliceFields(Specification<Ship> spec, Pageable pageable, List<ShipField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Ship> root = query.from(Ship.class);
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (ShipField field : fields) {
+            selections.add(root.get(field.getFieldName()).alias(field.getFieldName()));
+        }
+
+        applySpecification(spec, root, query, cb);
+        query.multiselect(selections).orderBy(toOrders(pageable.getSort(), root, cb));
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = tuples.size() > pageable.getPageSize();
+        int size = hasNext ? pageable.getPageSize() : tuples.size();
+
+        List<Map<String, Object>> ships = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Tuple tuple = tuples.get(i);
+            Map<String, Object> ship = new LinkedHashMap<>();
+            for (int j = 0; j < fields.size(); j++) {
+                ship.put(fields.get(j).getFieldName(), tuple.get(j));
+            }
+            ships.add(ship);
+        }
+
+        return new SliceImpl<>(ships, pageable, hasNext);
+    }
+
+    @Override
+    public long count(Specification<Ship> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(cb.count(root));
+
+        return entityManager.createQuery(query)
+                .setHint(HINT_CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    @Override
+    public long count(ShipFilter filter, long[] candidateIds) {
+        if (candidateIds != null && candidateIds.length == 0) return 0;
+
+        ShipQueryTemplate template = ShipQueryTemplate.of(filter, candidateIds, Sort.unsorted());
+        return template.bind(entityManager.createQuery(template.getCountQuery(), Long.class), filter, candidateIds)
+                .setHint(HINT_CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    @Override
+    public void scrollAll(Specification<Ship> spec, Sort sort, int fetchSize, Consumer<Ship> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(root).orderBy(toOrders(sort, root, cb));
+
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults results = entityManager.createQuery(query)
+                .unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Ship ship = (Ship) results.get(0);
+                consumer.accept(ship);
+                session.evict(ship);
+            }
+        }
+    }
+
+    @Override
+    public List<Long> findIdsForUpdate(Specification<Ship> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(root.get("id"));
+
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    @Override
+    public int deleteAll(Specification<Ship> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+        Root<Ship> root = delete.from(Ship.class);
+
+        Predicate predicate = toPredicate(spec, root, cb);
+        if (predicate != null) delete.where(predicate);
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    @Override
+    public int updateAll(Specification<Ship> spec, Ship patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+
+        set(update, patch);
+        Predicate predicate = toPredicate(spec, root, cb);
+        if (predicate != null) update.where(predicate);
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int deleteByIds(List<Long> ids) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+            Root<Ship> root = delete.from(Ship.class);
+            delete.where(root.get("id").in(chunk));
+
+            deleted += entityManager.createQuery(delete).executeUpdate();
+        }
+        return deleted;
+    }
+
+    @Override
+    public int updateByIds(List<Long> ids, Ship patch) {
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            updated += update(chunk, patch);
+        }
+        return updated;
+    }
+
+    private int update(List<Long> ids, Ship patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+
+        set(update, patch);
+        update.where(root.get("id").in(ids));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static void set(CriteriaUpdate<Ship> update, Ship patch) {
+        if (patch.getName() != null) update.set("name", patch.getName());
+        if (patch.getPlanet() != null) update.set("planet", patch.getPlanet());
+        if (patch.getShipType() != null) update.set("shipType", patch.getShipType());
+        if (patch.getProdDate() != null) update.set("prodDate", patch.getProdDate());
+        if (patch.getUsed() != null) update.set("isUsed", patch.getUsed());
+        if (patch.getSpeed() != null) update.set("speed", patch.getSpeed());
+        if (patch.getCrewSize() != null) update.set("crewSize", patch.getCrewSize());
+    }
+
+    @Override
+    public Map<Integer, String> insertAll(List<Ship> ships, int batchSize) {
+        Map<Integer, String> errors = new HashMap<>();
+        if (ships.isEmpty()) return errors;
+
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < ships.size(); from += batchSize) {
+                    List<Ship> batch = ships.subList(from, Math.min(from + batchSize, ships.size()));
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        for (Ship ship : batch) {
+                            bind(statement, ship);
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                        readGeneratedKeys(statement, batch);
+                        connection.releaseSavepoint(savepoint);
+                    } catch (SQLException e) {
+                        statement.clearBatch();
+                        connection.rollback(savepoint);
+                        insertOneByOne(connection, statement, batch, from, errors);
+                    }
+                }
+            }
+        });
+
+        evictShipCaches();
+
+        return errors;
+    }
+
+    @Override
+    public int updateRatings(List<Ship> ships, int batchSize) {
+        if (ships.isEmpty()) return 0;
+
+        Session session = entityManager.unwrap(Session.class);
+        int updated = session.doReturningWork(connection -> {
+            int count = 0;
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_RATING_SQL)) {
+                for (int from = 0; from < ships.size(); from += batchSize) {
+                    for (Ship ship : ships.subList(from, Math.min(from + batchSize, ships.size()))) {
+                        statement.setDouble(1, ship.getRating());
+                        statement.setLong(2, ship.getId());
+                        statement.setDouble(3, ship.getSpeed());
+                        statement.setBoolean(4, ship.getUsed());
+                        statement.setTimestamp(5, new Timestamp(ship.getProdDate().getTime()));
+                        statement.addBatch();
+                    }
+                    for (int rows : statement.executeBatch()) {
+                        // драйвер может не сообщать количество строк пакета, тогда строка считается обновленной
+                        count += rows == Statement.SUCCESS_NO_INFO ? 1 : rows;
+                    }
+                }
+            }
+            return count;
+        });
+
+        evictShipCaches();
+
+        return updated;
+    }
+
+    /**
+     * Запись идет через JDBC в обход Hibernate, поэтому корабли и запросы кэша второго уровня сбрасываются
+     * сразу и еще раз после завершения транзакции, чтобы не остались корабли, прочитанные до коммита
+     */
+    private void evictShipCaches() {
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        evictShips(cache);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evictShips(cache);
+            }
+        });
+    }
+
+    private static void evictShips(Cache cache) {
+        cache.evict(Ship.class);
+        cache.evictQueryRegions();
+    }
+
+    private static void insertOneByOne(Connection connection, PreparedStatement statement, List<Ship> batch,
+                                       int from, Map<Integer, String> errors) throws SQLException {
+        for (int i = 0; i < batch.size(); i++) {
+            Ship ship = batch.get(i);
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                bind(statement, ship);
+                statement.executeUpdate();
+                readGeneratedKeys(statement, Collections.singletonList(ship));
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                errors.put(from + i, describe(e));
+            }
+        }
+    }
+
+    /**
+     * Текст ошибки БД уходит клиенту, поэтому вместо сообщения драйвера, в котором есть SQL и значения,
+     * возвращается постоянное сообщение по классу SQLState
+     */
+    private static String describe(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith(SQL_STATE_CONSTRAINT_VIOLATION) ? CONSTRAINT_VIOLATION_ERROR : INSERT_ERROR;
+    }
+
+    private static void bind(PreparedStatement statement, Ship ship) throws SQLException {
+        statement.setString(1, ship.getName());
+        statement.setString(2, ship.getPlanet());
+        statement.setString(3, ship.getShipType().name());
+        statement.setTimestamp(4, new Timestamp(ship.getProdDate().getTime()));
+        statement.setBoolean(5, ship.getUsed());
+        statement.setDouble(6, ship.getSpeed());
+        statement.setInt(7, ship.getCrewSize());
+        statement.setDouble(8, ship.getRating());
+    }
+
+    private static void readGeneratedKeys(PreparedStatement statement, List<Ship> ships) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (Ship ship : ships) {
+                if (!keys.next()) throw new SQLException("Generated key is missing for ship " + ship.getName());
+                ship.setId(keys.getLong(1));
+            }
+        }
+    }
+
+    private static Slice<Ship> toSlice(List<Ship> ships, Pageable pageable) {
+        boolean hasNext = ships.size() > pageable.getPageSize();
+        if (hasNext) ships = ships.subList(0, pageable.getPageSize());
+
+        return new SliceImpl<>(ships, pageable, hasNext);
+    }
+
+    private static Specification<Ship> getSpecification(ShipFilter filter, long[] candidateIds) {
+        Specification<Ship> spec = ShipSpecification.getAllSpecification(filter);
+        return candidateIds == null ? spec : spec.and(ShipSpecification.getIdInSpecification(candidateIds));
+    }
+
+    private static void applySpecification(Specification<Ship> spec, Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        if (spec == null) return;
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+    }
+
+    /**
+     * В Spring Data JPA 2.x {@link Specification} строится только для {@link CriteriaQuery},
+     * условия ShipSpecification запрос не используют, поэтому для DELETE и UPDATE передается null
+     */
+    private static Predicate toPredicate(Specification<Ship> spec, Root<Ship> root, CriteriaBuilder cb) {
+        return spec == null ? null : spec.toPredicate(root, null, cb);
+    }
+
+    /**
+     * Список идентификаторов делится на части, чтобы IN (...) не превышал ограничений БД на размер запроса
+     */
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+}
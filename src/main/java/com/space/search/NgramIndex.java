@@ -0,0 +1,228 @@
+package com.space.search;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный триграммный индекс строкового поля для поиска по подстроке
+ * <p>
+ * Для каждой триграммы хранится отсортированный список идентификаторов, в значениях которых она встречается.
+ * Поиск подстроки пересекает списки триграмм подстроки, начиная с самого короткого,
+ * и проверяет найденных кандидатов по самим значениям. Сравнение выполняется без учета регистра
+ * и диакритических знаков (é и e совпадают), поэтому результат является надмножеством совпадений
+ * LIKE '%x%' как для регистрозависимого, так и для регистронезависимого и accent-insensitive сравнения в БД.
+ */
+public class NgramIndex {
+
+    static final int GRAM = 3;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final Map<Long, String> values = new HashMap<>();
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Метод добавляет или заменяет значение в индексе
+     *
+     * @param id    идентификатор записи
+     * @param value значение поля, null удаляет запись из индекса
+     */
+    public void put(long id, String value) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            if (value == null) return;
+
+            String normalized = normalize(value);
+            values.put(id, normalized);
+            for (long gram : grams(normalized)) {
+                grams.computeIfAbsent(gram, k -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод удаляет запись из индекса
+     *
+     * @param id идентификатор записи
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            values.clear();
+            grams.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Метод ищет записи, значения которых содержат подстроку
+     *
+     * @param query         искомая подстрока
+     * @param maxCandidates максимальное количество найденных записей
+     * @return возвращает отсортированный массив идентификаторов, либо null,
+     * если подстрока короче триграммы или найдено больше maxCandidates записей,
+     * то есть фильтр по индексу не дает выигрыша
+     */
+    public long[] search(String query, int maxCandidates) {
+        if (query == null) return null;
+
+        String normalized = normalize(query);
+        if (normalized.length() < GRAM) return null;
+        long[] queryGrams = grams(normalized);
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[queryGrams.length];
+            for (int i = 0; i < queryGrams.length; i++) {
+                lists[i] = grams.get(queryGrams[i]);
+                if (lists[i] == null) return new long[0];
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            long[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > 0; i++) {
+                count = lists[i].retainAll(candidates, count);
+            }
+
+            int found = 0;
+            for (int i = 0; i < count; i++) {
+                if (values.get(candidates[i]).contains(normalized)) {
+                    if (found == maxCandidates) return null;
+                    candidates[found++] = candidates[i];
+                }
+            }
+            return Arrays.copyOf(candidates, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(long id) {
+        String old = values.remove(id);
+        if (old == null) return;
+
+        for (long gram : grams(old)) {
+            Postings postings = grams.get(gram);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                grams.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Строка приводится к нижнему регистру, диакритические знаки отбрасываются после разложения символов
+     */
+    static String normalize(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Метод разбивает строку на уникальные триграммы, каждая триграмма упакована в long по 16 бит на символ
+     */
+    static long[] grams(String value) {
+        if (value.length() < GRAM) return new long[0];
+
+        long[] result = new long[value.length() - GRAM + 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+        }
+        Arrays.sort(result);
+
+        int unique = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) result[unique++] = result[i];
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    /**
+     * Отсортированный список идентификаторов триграммы
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                append(id);
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+
+            pos = -pos - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Метод оставляет в candidates только идентификаторы, присутствующие в списке
+         *
+         * @return возвращает количество оставшихся кандидатов
+         */
+        int retainAll(long[] candidates, int count) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < count; i++) {
+                long id = candidates[i];
+                while (j < size && ids[j] < id) j++;
+                if (j == size) break;
+                if (ids[j] == id) candidates[kept++] = id;
+            }
+            return kept;
+        }
+
+        private void append(long id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+}
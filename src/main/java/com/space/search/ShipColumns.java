@@ -0,0 +1,539 @@
+package com.space.search;
+
+import com.space.Specification.ShipFilter;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица кораблей, разложенная по столбцам из примитивных массивов
+ * <p>
+ * Строки упорядочены по id, поэтому строка корабля находится двоичным поиском, а выборка в порядке id
+ * не требует сортировки. Удаленные строки только снимаются с отметки live и вычищаются, когда их
+ * становится больше четверти таблицы. Фильтр вычисляется по столбцам: каждое условие проходит
+ * свой массив и оставляет в битовой маске только подходящие строки, пропуская пустые слова маски.
+ * Условия по подстроке проверяются последними и только для оставшихся строк.
+ * <p>
+ * Для столбцов с малым числом значений - shipType, isUsed и planet - хранятся битовые карты строк
+ * каждого значения, поэтому их условия сводятся к AND и OR слов карт без чтения самих столбцов,
+ * а количество кораблей по ним - к подсчету единичных бит. Планета хранится кодом в словаре,
+ * подстрока проверяется один раз для каждого значения словаря, а карты подходящих значений объединяются.
+ * Подстрока ищется как обычная строка, с учетом регистра либо без учета регистра и диакритических знаков,
+ * как LIKE при сортировке столбца _cs или _ai_ci в БД. Другие равенства сортировки (например, ß и ss)
+ * не учитываются, шаблоны _ и % не поддерживаются, такие фильтры выполняет БД.
+ * <p>
+ * Класс не потокобезопасен, синхронизацию обеспечивает {@link ShipReadReplica}.
+ */
+class ShipColumns {
+
+    /**
+     * Даты и границы фильтра по дате ограничены ±2^61, чтобы разность двух дат не переполняла long
+     */
+    private static final long MAX_DATE = Long.MAX_VALUE / 4;
+    private static final long NULL_DATE = -MAX_DATE - 1;
+    private static final long NAN_BITS = 0x7ff0000000000000L;
+    private static final int NULL_CREW_SIZE = Integer.MIN_VALUE;
+    private static final byte NULL_TYPE = -1;
+    private static final ShipType[] TYPES = ShipType.values();
+
+    private int size;
+    private int deleted;
+    private long[] ids = new long[16];
+    private String[] names = new String[16];
+    private String[] lowerNames = new String[16];
+    private int[] planets = new int[16];
+    private byte[] shipTypes = new byte[16];
+    private long[] prodDates = new long[16];
+    private long[] live = new long[1];
+    private long[] used = new long[1];
+    private long[] usedKnown = new long[1];
+    private final long[][] typeBits = new long[TYPES.length][1];
+    private final List<long[]> planetBits = new ArrayList<>();
+    private double[] speeds = new double[16];
+    private int[] crewSizes = new int[16];
+    private double[] ratings = new double[16];
+
+    private final List<String> planetDictionary = new ArrayList<>();
+    private final List<String> lowerPlanetDictionary = new ArrayList<>();
+    private final Map<String, Integer> planetCodes = new HashMap<>();
+
+    int size() {
+        return size - deleted;
+    }
+
+    /**
+     * Метод добавляет или заменяет корабль
+     *
+     * @param row строка вида [id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating]
+     */
+    void put(Object[] row) {
+        long id = (Long) row[0];
+        int slot = find(id);
+        if (slot < 0) {
+            slot = insertSlot(-slot - 1, id);
+        } else if (!getBit(live, slot)) {
+            setBit(live, slot, true);
+            deleted--;
+        }
+
+        names[slot] = (String) row[1];
+        lowerNames[slot] = lower((String) row[1]);
+        if (planets[slot] >= 0) setBit(planetBits.get(planets[slot]), slot, false);
+        planets[slot] = planetCode((String) row[2]);
+        if (planets[slot] >= 0) setBit(planetBits.get(planets[slot]), slot, true);
+        if (shipTypes[slot] != NULL_TYPE) setBit(typeBits[shipTypes[slot]], slot, false);
+        shipTypes[slot] = row[3] == null ? NULL_TYPE : (byte) ((ShipType) row[3]).ordinal();
+        if (shipTypes[slot] != NULL_TYPE) setBit(typeBits[shipTypes[slot]], slot, true);
+        prodDates[slot] = row[4] == null ? NULL_DATE : clampDate(((Date) row[4]).getTime());
+        setBit(usedKnown, slot, row[5] != null);
+        setBit(used, slot, Boolean.TRUE.equals(row[5]));
+        speeds[slot] = row[6] == null ? Double.NaN : (Double) row[6];
+        crewSizes[slot] = row[7] == null ? NULL_CREW_SIZE : (Integer) row[7];
+        ratings[slot] = row[8] == null ? Double.NaN : (Double) row[8];
+    }
+
+    void remove(long id) {
+        int slot = find(id);
+        if (slot < 0 || !getBit(live, slot)) return;
+
+        setBit(live, slot, false);
+        names[slot] = null;
+        lowerNames[slot] = null;
+        deleted++;
+        if (deleted > 1024 && deleted > size / 4) compact();
+    }
+
+    void clear() {
+        size = 0;
+        deleted = 0;
+        Arrays.fill(live, 0);
+        for (long[] bits : typeBits) Arrays.fill(bits, 0);
+        planetBits.clear();
+        planetDictionary.clear();
+        lowerPlanetDictionary.clear();
+        planetCodes.clear();
+    }
+
+    /**
+     * Метод возвращает битовую маску строк, подходящих под фильтр, условия как в ShipSpecification
+     *
+     * @param filter     фильтр кораблей
+     * @param ignoreCase признак поиска подстроки без учета регистра
+     */
+    long[] filter(ShipFilter filter, boolean ignoreCase) {
+        long[] mask = Arrays.copyOf(live, words(size));
+
+        if (filter.getShipType() != null) and(mask, typeBits[filter.getShipType().ordinal()]);
+        if (filter.getUsed() != null) filterUsed(mask, filter.getUsed());
+        if (filter.getAfter() != null || filter.getBefore() != null) {
+            filterProdDate(mask,
+                    filter.getAfter() == null ? NULL_DATE + 1 : clampDate(filter.getAfter()),
+                    filter.getBefore() == null ? MAX_DATE : clampDate(filter.getBefore()));
+        }
+        if (filter.getMinSpeed() != null || filter.getMaxSpeed() != null) {
+            filterDouble(mask, speeds,
+                    filter.getMinSpeed() == null ? -Double.MAX_VALUE : clamp(filter.getMinSpeed(), Double.MAX_VALUE),
+                    filter.getMaxSpeed() == null ? Double.MAX_VALUE : clamp(filter.getMaxSpeed(), -Double.MAX_VALUE));
+        }
+        if (filter.getMinCrewSize() != null || filter.getMaxCrewSize() != null) {
+            filterCrewSize(mask,
+                    filter.getMinCrewSize() == null ? NULL_CREW_SIZE + 1 : filter.getMinCrewSize(),
+                    filter.getMaxCrewSize() == null ? Integer.MAX_VALUE : filter.getMaxCrewSize());
+        }
+        if (filter.getMinRating() != null || filter.getMaxRating() != null) {
+            filterDouble(mask, ratings,
+                    filter.getMinRating() == null ? -Double.MAX_VALUE : clamp(filter.getMinRating(), Double.MAX_VALUE),
+                    filter.getMaxRating() == null ? Double.MAX_VALUE : clamp(filter.getMaxRating(), -Double.MAX_VALUE));
+        }
+        if (filter.getPlanet() != null) {
+            filterPlanet(mask, ignoreCase ? lowerPlanetDictionary : planetDictionary,
+                    ignoreCase ? lower(filter.getPlanet()) : filter.getPlanet());
+        }
+        if (filter.getName() != null) {
+            filterName(mask, ignoreCase ? lowerNames : names, ignoreCase ? lower(filter.getName()) : filter.getName());
+        }
+
+        return mask;
+    }
+
+    static long count(long[] mask) {
+        long count = 0;
+        for (long word : mask) count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Метод возвращает строки страницы в порядке возрастания id
+     */
+    int[] pageById(long[] mask, long offset, int limit) {
+        int[] page = new int[limit];
+        int count = 0;
+        long skipped = 0;
+        for (int w = 0; w < mask.length && count < limit; w++) {
+            long word = mask[w];
+            while (word != 0 && count < limit) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (skipped++ >= offset) page[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(page, count);
+    }
+
+    /**
+     * Метод возвращает строки страницы в порядке возрастания поля, при равенстве в порядке id
+     * Отбираются offset + limit первых строк в куче ограниченного размера, без сортировки всех подходящих строк
+     *
+     * @param field поле сортировки: speed, prodDate или rating
+     */
+    int[] pageBy(String field, long[] mask, long offset, int limit) {
+        long[] keys = sortKeys(field);
+        int k = (int) Math.min(offset + limit, count(mask));
+        if (k <= offset) return new int[0];
+
+        // max-куча из k наименьших строк по (ключ, id), id растет вместе с номером строки
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int w = 0; w < mask.length; w++) {
+            long word = mask[w];
+            while (word != 0) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (heapSize < k) {
+                    heap[heapSize] = slot;
+                    siftUp(heap, heapSize++, keys);
+                } else if (less(slot, heap[0], keys)) {
+                    heap[0] = slot;
+                    siftDown(heap, heapSize, keys);
+                }
+            }
+        }
+
+        for (int end = heapSize - 1; end > 0; end--) {
+            int top = heap[0];
+            heap[0] = heap[end];
+            heap[end] = top;
+            siftDown(heap, end, keys);
+        }
+        return Arrays.copyOfRange(heap, (int) offset, heapSize);
+    }
+
+    Ship toShip(int slot) {
+        Ship ship = new Ship();
+        ship.setId(ids[slot]);
+        ship.setName(names[slot]);
+        ship.setPlanet(planets[slot] < 0 ? null : planetDictionary.get(planets[slot]));
+        ship.setShipType(shipTypes[slot] == NULL_TYPE ? null : TYPES[shipTypes[slot]]);
+        ship.setProdDate(prodDates[slot] == NULL_DATE ? null : new Date(prodDates[slot]));
+        ship.setUsed(getBit(usedKnown, slot) ? getBit(used, slot) : null);
+        ship.setSpeed(Double.isNaN(speeds[slot]) ? null : speeds[slot]);
+        ship.setCrewSize(crewSizes[slot] == NULL_CREW_SIZE ? null : crewSizes[slot]);
+        ship.setRating(Double.isNaN(ratings[slot]) ? null : ratings[slot]);
+        return ship;
+    }
+
+    private static void and(long[] mask, long[] bits) {
+        for (int w = 0; w < mask.length; w++) mask[w] &= bits[w];
+    }
+
+    private void filterUsed(long[] mask, boolean value) {
+        for (int w = 0; w < mask.length; w++) {
+            mask[w] &= usedKnown[w] & (value ? used[w] : ~used[w]);
+        }
+    }
+
+    /**
+     * Условия по диапазону вычисляются без ветвлений: строка вне диапазона, если отрицательна
+     * хотя бы одна из разностей value - from и to - value, то есть установлен ее знаковый бит.
+     * Случайные значения столбца не дают процессору предсказать переход, поэтому
+     * сравнение через if или тернарный оператор по каждой строке в несколько раз медленнее.
+     */
+    private void filterProdDate(long[] mask, long from, long to) {
+        for (int w = 0; w < mask.length; w++) {
+            if (mask[w] == 0) continue;
+            int base = w << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                long value = prodDates[base + b];
+                bits |= (~(value - from | to - value) >>> 63) << b;
+            }
+            mask[w] &= bits;
+        }
+    }
+
+    private void filterCrewSize(long[] mask, long from, long to) {
+        for (int w = 0; w < mask.length; w++) {
+            if (mask[w] == 0) continue;
+            int base = w << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                long value = crewSizes[base + b];
+                bits |= (~(value - from | to - value) >>> 63) << b;
+            }
+            mask[w] &= bits;
+        }
+    }
+
+    /**
+     * NaN (NULL в БД) не проходит условие, как и NULL в SQL: для NaN отрицательна разность NAN_BITS - |bits|.
+     * + 0.0 превращает разность -0.0 в 0.0, границы фильтра конечны, поэтому разности не бывают NaN
+     */
+    private void filterDouble(long[] mask, double[] column, double from, double to) {
+        for (int w = 0; w < mask.length; w++) {
+            if (mask[w] == 0) continue;
+            int base = w << 6;
+            int end = Math.min(64, size - base);
+            long bits = 0;
+            for (int b = 0; b < end; b++) {
+                double value = column[base + b];
+                long outside = Double.doubleToRawLongBits(value - from + 0.0)
+                        | Double.doubleToRawLongBits(to - value + 0.0)
+                        | NAN_BITS - (Double.doubleToRawLongBits(value) & Long.MAX_VALUE);
+                bits |= (~outside >>> 63) << b;
+            }
+            mask[w] &= bits;
+        }
+    }
+
+    private void filterPlanet(long[] mask, List<String> dictionary, String planet) {
+        long[] matches = new long[mask.length];
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (!dictionary.get(code).contains(planet)) continue;
+
+            long[] bits = planetBits.get(code);
+            for (int w = 0; w < matches.length; w++) matches[w] |= bits[w];
+        }
+        and(mask, matches);
+    }
+
+    private void filterName(long[] mask, String[] column, String name) {
+        for (int w = 0; w < mask.length; w++) {
+            long word = mask[w];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                String value = column[(w << 6) + bit];
+                if (value == null || !value.contains(name)) mask[w] &= ~(1L << bit);
+            }
+        }
+    }
+
+    /**
+     * Ключи сортировки в виде long с тем же порядком, NULL идет первым, как в MySQL
+     */
+    private long[] sortKeys(String field) {
+        switch (field) {
+            case "prodDate":
+                return prodDates;
+            case "speed":
+                return sortable(speeds);
+            case "rating":
+                return sortable(ratings);
+            default:
+                throw new IllegalArgumentException("Unsupported sort field " + field);
+        }
+    }
+
+    private long[] sortable(double[] column) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            double value = column[i];
+            long bits = Double.doubleToLongBits(value);
+            keys[i] = Double.isNaN(value) ? Long.MIN_VALUE : bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+        return keys;
+    }
+
+    private static boolean less(int left, int right, long[] keys) {
+        return keys[left] < keys[right] || keys[left] == keys[right] && left < right;
+    }
+
+    private static void siftUp(int[] heap, int index, long[] keys) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(heap[parent], slot, keys)) break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private static void siftDown(int[] heap, int size, long[] keys) {
+        int index = 0;
+        int slot = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && less(heap[child], heap[child + 1], keys)) child++;
+            if (!less(slot, heap[child], keys)) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    private int find(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    /**
+     * Метод вставляет строку в позицию position, сдвигая последующие строки
+     * Новые корабли получают растущие id, поэтому почти всегда строка добавляется в конец
+     */
+    private int insertSlot(int position, long id) {
+        if (size == ids.length) grow();
+
+        int tail = size - position;
+        if (tail > 0) {
+            System.arraycopy(ids, position, ids, position + 1, tail);
+            System.arraycopy(names, position, names, position + 1, tail);
+            System.arraycopy(lowerNames, position, lowerNames, position + 1, tail);
+            System.arraycopy(planets, position, planets, position + 1, tail);
+            System.arraycopy(shipTypes, position, shipTypes, position + 1, tail);
+            System.arraycopy(prodDates, position, prodDates, position + 1, tail);
+            System.arraycopy(speeds, position, speeds, position + 1, tail);
+            System.arraycopy(crewSizes, position, crewSizes, position + 1, tail);
+            System.arraycopy(ratings, position, ratings, position + 1, tail);
+            for (long[] bits : bitmaps()) insertBit(bits, position);
+        } else {
+            for (long[] bits : bitmaps()) setBit(bits, position, false);
+        }
+
+        ids[position] = id;
+        planets[position] = -1;
+        shipTypes[position] = NULL_TYPE;
+        setBit(live, position, true);
+        size++;
+        return position;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        lowerNames = Arrays.copyOf(lowerNames, capacity);
+        planets = Arrays.copyOf(planets, capacity);
+        shipTypes = Arrays.copyOf(shipTypes, capacity);
+        prodDates = Arrays.copyOf(prodDates, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        crewSizes = Arrays.copyOf(crewSizes, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        live = Arrays.copyOf(live, words(capacity));
+        used = Arrays.copyOf(used, words(capacity));
+        usedKnown = Arrays.copyOf(usedKnown, words(capacity));
+        for (int type = 0; type < typeBits.length; type++) {
+            typeBits[type] = Arrays.copyOf(typeBits[type], words(capacity));
+        }
+        planetBits.replaceAll(bits -> Arrays.copyOf(bits, words(capacity)));
+    }
+
+    private List<long[]> bitmaps() {
+        List<long[]> bitmaps = new ArrayList<>(3 + typeBits.length + planetBits.size());
+        bitmaps.add(live);
+        bitmaps.add(used);
+        bitmaps.add(usedKnown);
+        bitmaps.addAll(Arrays.asList(typeBits));
+        bitmaps.addAll(planetBits);
+        return bitmaps;
+    }
+
+    /**
+     * Метод сдвигает биты карты, начиная с position, на один вверх и обнуляет бит position
+     */
+    private void insertBit(long[] bits, int position) {
+        int first = position >>> 6;
+        for (int w = size >>> 6; w > first; w--) {
+            bits[w] = bits[w] << 1 | bits[w - 1] >>> 63;
+        }
+        long low = (1L << position) - 1;
+        bits[first] = bits[first] & low | (bits[first] & ~low) << 1;
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (!getBit(live, slot)) continue;
+            if (target != slot) {
+                ids[target] = ids[slot];
+                names[target] = names[slot];
+                lowerNames[target] = lowerNames[slot];
+                planets[target] = planets[slot];
+                shipTypes[target] = shipTypes[slot];
+                prodDates[target] = prodDates[slot];
+                speeds[target] = speeds[slot];
+                crewSizes[target] = crewSizes[slot];
+                ratings[target] = ratings[slot];
+                setBit(used, target, getBit(used, slot));
+                setBit(usedKnown, target, getBit(usedKnown, slot));
+            }
+            target++;
+        }
+        for (int slot = target; slot < size; slot++) {
+            setBit(used, slot, false);
+            setBit(usedKnown, slot, false);
+        }
+        Arrays.fill(live, 0);
+        for (long[] bits : typeBits) Arrays.fill(bits, 0);
+        for (long[] bits : planetBits) Arrays.fill(bits, 0);
+        for (int slot = 0; slot < target; slot++) {
+            setBit(live, slot, true);
+            if (shipTypes[slot] != NULL_TYPE) setBit(typeBits[shipTypes[slot]], slot, true);
+            if (planets[slot] >= 0) setBit(planetBits.get(planets[slot]), slot, true);
+        }
+        Arrays.fill(names, target, size, null);
+        Arrays.fill(lowerNames, target, size, null);
+        size = target;
+        deleted = 0;
+    }
+
+    private int planetCode(String planet) {
+        if (planet == null) return -1;
+
+        Integer code = planetCodes.get(planet);
+        if (code == null) {
+            code = planetDictionary.size();
+            planetDictionary.add(planet);
+            lowerPlanetDictionary.add(lower(planet));
+            planetCodes.put(planet, code);
+            planetBits.add(new long[live.length]);
+        }
+        return code;
+    }
+
+    private static long clampDate(long value) {
+        return Math.max(NULL_DATE + 1, Math.min(MAX_DATE, value));
+    }
+
+    /**
+     * Бесконечные границы заменяются наибольшим конечным значением, NaN - границей, за которую не проходят строки
+     */
+    private static double clamp(double value, double nanValue) {
+        return Double.isNaN(value) ? nanValue : Math.max(-Double.MAX_VALUE, Math.min(Double.MAX_VALUE, value));
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : NgramIndex.normalize(value);
+    }
+
+    private static int words(int bits) {
+        return Math.max(1, (bits + 63) >>> 6);
+    }
+
+    private static boolean getBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) bits[index >>> 6] |= 1L << index;
+        else bits[index >>> 6] &= ~(1L << index);
+    }
+}
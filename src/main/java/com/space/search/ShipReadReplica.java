@@ -0,0 +1,276 @@
+package com.space.search;
+
+import com.space.Specification.ShipFilter;
+import com.space.model.Ship;
+import com.space.repository.ShipRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Копия таблицы ship в памяти для выборки и подсчета кораблей по фильтру без обращения к БД
+ * <p>
+ * Корабли хранятся по столбцам в {@link ShipColumns}, фильтр вычисляется по массивам примитивов,
+ * а объекты {@link Ship} создаются только для кораблей запрошенной страницы.
+ * Копия загружается при запуске приложения, измененные корабли перечитываются из БД по id
+ * после фиксации изменившей их транзакции. Перечитывание и применение изменений выполняются
+ * по одному, поэтому копия не может откатиться к более старому состоянию строки.
+ * Изменения других экземпляров приложения и прямые изменения в БД копия не видит, поэтому она
+ * целиком перезагружается раз в replica.rebuildIntervalSeconds, до этого такие изменения в ней не отражены.
+ * Фильтры name и planet с символами _ или %, которые в LIKE являются шаблоном, выполняются в БД.
+ * По умолчанию выключена: копия занимает память под всю таблицу.
+ */
+@Component
+public class ShipReadReplica implements SmartInitializingSingleton, DisposableBean {
+
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+
+    private final ShipRepository shipRepository;
+    private final TransactionTemplate readTemplate;
+    private final ShipColumns columns = new ShipColumns();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadLock = new Object();
+
+    @Value("${replica.enabled:false}")
+    private volatile boolean enabled;
+
+    /**
+     * LIKE в MySQL при сортировке столбцов по умолчанию (utf8mb4_0900_ai_ci) не учитывает регистр
+     * и диакритические знаки, так же ищет и {@link NgramIndex}
+     */
+    @Value("${replica.ignoreCase:true}")
+    private boolean ignoreCase;
+
+    private volatile boolean loaded;
+
+    @Value("${replica.rebuildIntervalSeconds:300}")
+    private long rebuildIntervalSeconds;
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "replica-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShipReadReplica(ShipRepository shipRepository, PlatformTransactionManager transactionManager) {
+        this.shipRepository = shipRepository;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        // перечитывание выполняется после фиксации транзакции, поэтому всегда в отдельной транзакции,
+        // и не read-only, чтобы читать основную БД: реплика БД могла еще не получить эти изменения
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+        if (rebuildIntervalSeconds <= 0) return;
+
+        rebuilder.scheduleWithFixedDelay(this::rebuildIfEnabled,
+                rebuildIntervalSeconds, rebuildIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод включает или выключает копию, при включении копия загружается заново
+     *
+     * @param enabled признак использования копии
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        rebuild();
+    }
+
+    /**
+     * Метод заново загружает все корабли из БД
+     */
+    public void rebuild() {
+        synchronized (reloadLock) {
+            loaded = false;
+            List<Object[]> rows = enabled ? readTemplate.execute(status -> shipRepository.findAllReplicaFields()) : null;
+
+            lock.writeLock().lock();
+            try {
+                columns.clear();
+                if (rows != null) rows.forEach(columns::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded = enabled;
+        }
+    }
+
+    /**
+     * Метод возвращает страницу кораблей по фильтру
+     *
+     * @param filter   фильтр кораблей
+     * @param pageable страница с сортировкой по id, speed, prodDate или rating по возрастанию
+     * @return возвращает корабли страницы, либо null, если копия выключена или не поддерживает сортировку или фильтр
+     */
+    public List<Ship> findPage(ShipFilter filter, Pageable pageable) {
+        if (!loaded || hasWildcard(filter)) return null;
+
+        String field = getSortField(pageable.getSort());
+        if (field == null) return null;
+
+        lock.readLock().lock();
+        try {
+            long[] mask = columns.filter(filter, ignoreCase);
+            int[] slots = field.equals("id")
+                    ? columns.pageById(mask, pageable.getOffset(), pageable.getPageSize())
+                    : columns.pageBy(field, mask, pageable.getOffset(), pageable.getPageSize());
+
+            List<Ship> ships = new ArrayList<>(slots.length);
+            for (int slot : slots) ships.add(columns.toShip(slot));
+            return ships;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Метод возвращает количество кораблей по фильтру
+     *
+     * @param filter фильтр кораблей
+     * @return возвращает количество кораблей, либо -1, если копия выключена или не поддерживает фильтр
+     */
+    public long count(ShipFilter filter) {
+        if (!loaded || hasWildcard(filter)) return -1;
+
+        lock.readLock().lock();
+        try {
+            return ShipColumns.count(columns.filter(filter, ignoreCase));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Метод перечитывает корабль из БД после успешной фиксации текущей транзакции
+     *
+     * @param id идентификатор созданного, измененного или удаленного корабля
+     */
+    public void onChanged(Long id) {
+        onChanged(Collections.singletonList(id));
+    }
+
+    /**
+     * Метод перечитывает корабли из БД после успешной фиксации текущей транзакции
+     * Корабли, которых больше нет в БД, удаляются из копии
+     *
+     * @param ids идентификаторы созданных, измененных или удаленных кораблей
+     */
+    public void onChanged(Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) return;
+
+        List<Long> changed = new ArrayList<>(ids);
+        afterCommit(() -> reload(changed));
+    }
+
+    /**
+     * Ошибка перезагрузки не отменяет следующие: копия остается выключенной до успешной загрузки,
+     * и запросы выполняются в БД
+     */
+    private void rebuildIfEnabled() {
+        if (!enabled) return;
+
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // следующая попытка через rebuildIntervalSeconds
+        }
+    }
+
+    private static boolean hasWildcard(ShipFilter filter) {
+        return isPattern(filter.getName()) || isPattern(filter.getPlanet());
+    }
+
+    private static boolean isPattern(String value) {
+        return value != null && (value.indexOf('_') >= 0 || value.indexOf('%') >= 0);
+    }
+
+    private void reload(List<Long> ids) {
+        synchronized (reloadLock) {
+            if (!loaded) return;
+
+            for (int from = 0; from < ids.size(); from += RELOAD_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, ids.size()));
+                List<Object[]> rows = readTemplate.execute(status -> shipRepository.findReplicaFields(chunk));
+
+                Set<Long> missing = new HashSet<>(chunk);
+                lock.writeLock().lock();
+                try {
+                    for (Object[] row : rows) {
+                        columns.put(row);
+                        missing.remove((Long) row[0]);
+                    }
+                    for (Long id : missing) columns.remove(id);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Метод возвращает поле сортировки, если порядок - по возрастанию поля и затем, возможно, по id
+     */
+    private static String getSortField(Sort sort) {
+        Iterator<Sort.Order> orders = sort.iterator();
+        if (!orders.hasNext()) return "id";
+
+        Sort.Order first = orders.next();
+        if (!first.isAscending() || first.isIgnoreCase()) return null;
+        String field = first.getProperty();
+        if (!field.equals("id") && !field.equals("speed") && !field.equals("prodDate") && !field.equals("rating")) {
+            return null;
+        }
+
+        if (orders.hasNext()) {
+            Sort.Order second = orders.next();
+            if (orders.hasNext() || !second.isAscending() || !second.getProperty().equals("id")) return null;
+        }
+        return field;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,266 @@
+package com.space.search;
+
+import com.space.Specification.ShipSpecification;
+import com.space.model.Ship;
+import com.space.repository.ShipRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Индекс для фильтров по подстроке наименования корабля и планеты
+ * <p>
+ * Фильтры name и planet превращаются в LIKE '%x%', который не может использовать индекс БД.
+ * Компонент хранит триграммные индексы обоих полей в памяти и по подстроке находит
+ * идентификаторы подходящих кораблей, поэтому запрос к БД дополняется условием id IN (...).
+ * Индекс строится при запуске приложения и обновляется при сохранении и удалении кораблей
+ * после фиксации транзакции.
+ * <p>
+ * Условие id IN (...) отбрасывает корабли, которых нет среди кандидатов, поэтому индекс должен находить
+ * все, что найдет LIKE. Подстрока с символами _ или % в LIKE является шаблоном, для нее выборка
+ * не сужается. Регистр и диакритические знаки индекс не учитывает, как регистронезависимые
+ * accent-insensitive сравнения MySQL, но другие равенства сравнения (например, ß и ss) не поддерживаются.
+ * Индекс видит только изменения, сделанные этим экземпляром приложения, и только после фиксации,
+ * поэтому корабль, созданный другим экземпляром или сохраненный в данный момент, может не попасть в выборку.
+ * По этим причинам индекс по умолчанию выключен и подходит только для единственного экземпляра приложения.
+ */
+@Component
+public class ShipSearchIndex implements SmartInitializingSingleton {
+
+    private final ShipRepository shipRepository;
+    private final Object updateLock = new Object();
+    private volatile Indexes indexes = new Indexes();
+
+    @Value("${search.ngram.enabled:false}")
+    private volatile boolean enabled;
+
+    @Value("${search.ngram.maxCandidates:1000}")
+    private int maxCandidates;
+
+    public ShipSearchIndex(ShipRepository shipRepository) {
+        this.shipRepository = shipRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод включает или выключает индекс, при включении индекс строится заново
+     *
+     * @param enabled признак использования индекса
+     */
+    public void setEnabled(boolean enabled) {
+        synchronized (updateLock) {
+            if (enabled) {
+                // поиск включается только после построения, иначе он сузит выборку по неполному индексу
+                indexes = build();
+                this.enabled = true;
+            } else {
+                this.enabled = false;
+                indexes = new Indexes();
+            }
+        }
+    }
+
+    /**
+     * Метод заново строит индекс по всем кораблям из БД
+     * Новый индекс строится отдельно от текущего и заменяет его целиком, поэтому поиск во время построения
+     * использует прежний полный индекс. Изменения после фиксации транзакций ждут окончания построения
+     * и применяются к новому индексу, поэтому более ранний снимок БД не перезаписывает их.
+     */
+    public void rebuild() {
+        synchronized (updateLock) {
+            indexes = enabled ? build() : new Indexes();
+        }
+    }
+
+    private Indexes build() {
+        Indexes built = new Indexes();
+        for (Object[] row : shipRepository.findAllSearchFields()) {
+            long id = (Long) row[0];
+            built.names.put(id, (String) row[1]);
+            built.planets.put(id, (String) row[2]);
+        }
+        return built;
+    }
+
+    /**
+     * Метод возвращает фильтр по идентификаторам кораблей, подходящих под фильтры name и planet
+     *
+     * @param name   наименование корабля или его часть
+     * @param planet наименование планеты или ее часть
+     * @return возвращает фильтр id IN (...), либо null, если индекс не может сузить выборку
+     */
+    public Specification<Ship> getCandidateSpecification(String name, String planet) {
+        long[] ids = getCandidateIds(name, planet);
+        return ids == null ? null : ShipSpecification.getIdInSpecification(ids);
+    }
+
+    /**
+     * Метод возвращает идентификаторы кораблей, подходящих под фильтры name и planet
+     *
+     * @param name   наименование корабля или его часть
+     * @param planet наименование планеты или ее часть
+     * @return возвращает отсортированный массив идентификаторов, либо null, если индекс не может сузить выборку
+     */
+    public long[] getCandidateIds(String name, String planet) {
+        if (!enabled) return null;
+
+        Indexes current = indexes;
+        return intersect(search(current.names, name), search(current.planets, planet));
+    }
+
+    /**
+     * Метод обновляет корабль в индексе после успешной фиксации текущей транзакции
+     *
+     * @param ship сохраненный корабль
+     */
+    public void onSave(Ship ship) {
+        if (!enabled) return;
+
+        long id = ship.getId();
+        String name = ship.getName();
+        String planet = ship.getPlanet();
+        update(current -> {
+            current.names.put(id, name);
+            current.planets.put(id, planet);
+        });
+    }
+
+    /**
+     * Метод добавляет корабли в индекс после успешной фиксации текущей транзакции
+     *
+     * @param ships сохраненные корабли
+     */
+    public void onSaveAll(List<Ship> ships) {
+        if (!enabled) return;
+
+        List<Ship> saved = new ArrayList<>(ships);
+        update(current -> {
+            for (Ship ship : saved) {
+                current.names.put(ship.getId(), ship.getName());
+                current.planets.put(ship.getId(), ship.getPlanet());
+            }
+        });
+    }
+
+    /**
+     * Метод заменяет наименование и планету кораблей в индексе после успешной фиксации текущей транзакции
+     *
+     * @param ids    идентификаторы измененных кораблей
+     * @param name   новое наименование кораблей, null если наименование не менялось
+     * @param planet новое наименование планеты, null если планета не менялась
+     */
+    public void onUpdateAll(List<Long> ids, String name, String planet) {
+        if (!enabled) return;
+
+        update(current -> {
+            for (Long id : ids) {
+                if (name != null) current.names.put(id, name);
+                if (planet != null) current.planets.put(id, planet);
+            }
+        });
+    }
+
+    /**
+     * Метод удаляет корабли из индекса после успешной фиксации текущей транзакции
+     *
+     * @param ids идентификаторы удаленных кораблей
+     */
+    public void onDeleteAll(List<Long> ids) {
+        if (!enabled) return;
+
+        update(current -> {
+            for (Long id : ids) {
+                current.names.remove(id);
+                current.planets.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Метод удаляет корабль из индекса после успешной фиксации текущей транзакции
+     *
+     * @param id идентификатор удаленного корабля
+     */
+    public void onDelete(Long id) {
+        if (!enabled) return;
+
+        update(current -> {
+            current.names.remove(id);
+            current.planets.remove(id);
+        });
+    }
+
+    /**
+     * Символы _ и % в LIKE являются шаблоном, а в индексе обычными символами, поэтому такая подстрока не ищется
+     */
+    private long[] search(NgramIndex index, String query) {
+        if (query == null || query.indexOf('_') >= 0 || query.indexOf('%') >= 0) return null;
+
+        return index.search(query, maxCandidates);
+    }
+
+    private static long[] intersect(long[] left, long[] right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        long[] result = new long[Math.min(left.length, right.length)];
+        int i = 0, j = 0, count = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) i++;
+            else if (left[i] > right[j]) j++;
+            else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Изменение применяется к текущему индексу после успешной фиксации транзакции под той же блокировкой,
+     * что и построение индекса
+     */
+    private void update(Consumer<Indexes> change) {
+        Runnable action = () -> {
+            synchronized (updateLock) {
+                if (enabled) change.accept(indexes);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Индексы наименований и планет, которые заменяются вместе
+     */
+    private static final class Indexes {
+
+        private final NgramIndex names = new NgramIndex();
+        private final NgramIndex planets = new NgramIndex();
+    }
+}
@@ -0,0 +1,244 @@
+package com.space.service;
+
+import com.space.model.RatingRecalculation;
+import com.space.model.RatingRecalculationProgress;
+import com.space.model.Ship;
+import com.space.repository.RatingRecalculationRepository;
+import com.space.repository.ShipRepository;
+import com.space.search.ShipReadReplica;
+import com.space.utility.CalcRatingShipUtility;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Задача пересчета рейтинга всех кораблей
+ * <p>
+ * Нужна, когда меняется формула рейтинга или текущий год в {@link CalcRatingShipUtility}.
+ * Таблица ship обходится порциями по первичному ключу, рейтинги порции пересчитываются параллельно
+ * в отдельном пуле ForkJoin и записываются пакетным UPDATE только для кораблей, у которых рейтинг изменился.
+ * Каждая порция фиксируется в своей транзакции вместе с позицией задачи {@link RatingRecalculation},
+ * поэтому после аварийной остановки задача продолжается с первой незафиксированной порции,
+ * в том числе автоматически при запуске приложения.
+ */
+@Component
+public class RatingRecalculationJob implements SmartInitializingSingleton, DisposableBean {
+
+    static final String JOB_ID = "rating";
+    private final ShipRepository shipRepository;
+    private final RatingRecalculationRepository recalculationRepository;
+    private final ShipListCache shipListCache;
+    private final ShipReadReplica shipReadReplica;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "rating-recalculation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile RatingRecalculation state;
+    private volatile long runStartedNanos;
+    private volatile long runStartedProcessed;
+
+    @Value("${rating.job.chunkSize:5000}")
+    private int chunkSize;
+
+    @Value("${db.batch.size:500}")
+    private int batchSize;
+
+    @Value("${rating.job.resumeOnStartup:true}")
+    private boolean resumeOnStartup;
+
+    public RatingRecalculationJob(ShipRepository shipRepository,
+                                  RatingRecalculationRepository recalculationRepository,
+                                  ShipListCache shipListCache,
+                                  ShipReadReplica shipReadReplica,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${rating.job.parallelism:0}") int parallelism) {
+        this.shipRepository = shipRepository;
+        this.recalculationRepository = recalculationRepository;
+        this.shipListCache = shipListCache;
+        this.shipReadReplica = shipReadReplica;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!resumeOnStartup) return;
+
+        recalculationRepository.findById(JOB_ID)
+                .filter(saved -> saved.getStatus() != RatingRecalculation.Status.FINISHED)
+                .ifPresent(saved -> start());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // прерванная порция откатывается, задача продолжится с нее при следующем запуске
+        runner.shutdownNow();
+        runner.awaitTermination(10, TimeUnit.SECONDS);
+        pool.shutdownNow();
+    }
+
+    /**
+     * Метод запускает пересчет рейтинга в фоновом потоке
+     * Незавершенный пересчет продолжается с сохраненной позиции, завершенный начинается заново
+     *
+     * @return возвращает false, если пересчет уже выполняется
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) return false;
+
+        try {
+            runner.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Метод возвращает ход выполнения пересчета рейтинга
+     *
+     * @return возвращает состояние последней зафиксированной порции, либо null, если пересчет ни разу не запускался
+     */
+    public RatingRecalculationProgress getProgress() {
+        RatingRecalculation current = state;
+        if (current == null) current = recalculationRepository.findById(JOB_ID).orElse(null);
+        if (current == null) return null;
+
+        double seconds = (System.nanoTime() - runStartedNanos) / 1e9;
+        double shipsPerSecond = state == null || seconds <= 0 ? 0 : (current.getProcessed() - runStartedProcessed) / seconds;
+        return new RatingRecalculationProgress(isRunning(), current, shipsPerSecond);
+    }
+
+    private void run() {
+        try {
+            RatingRecalculation current = transactionTemplate.execute(status -> begin());
+            runStartedNanos = System.nanoTime();
+            runStartedProcessed = current.getProcessed();
+            state = current;
+
+            while (current.getStatus() == RatingRecalculation.Status.RUNNING && !Thread.currentThread().isInterrupted()) {
+                current = transactionTemplate.execute(status -> recalculateChunk());
+                state = current;
+            }
+        } catch (RuntimeException e) {
+            String error = describe(e);
+            try {
+                state = transactionTemplate.execute(status -> fail(error));
+            } catch (RuntimeException failure) {
+                // позицию задачи сохранить не удалось, причина остановки остается в состоянии в памяти
+                RatingRecalculation current = state;
+                if (current != null) {
+                    current.setStatus(RatingRecalculation.Status.FAILED);
+                    current.setError(error);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RatingRecalculation begin() {
+        RatingRecalculation saved = recalculationRepository.findById(JOB_ID).orElse(null);
+        if (saved != null && saved.getStatus() != RatingRecalculation.Status.FINISHED) {
+            saved.setStatus(RatingRecalculation.Status.RUNNING);
+            saved.setError(null);
+            return saved;
+        }
+        return recalculationRepository.save(new RatingRecalculation(JOB_ID, shipRepository.count()));
+    }
+
+    private RatingRecalculation recalculateChunk() {
+        RatingRecalculation current = recalculationRepository.findById(JOB_ID)
+                .orElseThrow(() -> new IllegalStateException("Rating recalculation checkpoint is missing"));
+
+        List<Object[]> rows = shipRepository.findRatingFields(current.getLastId(), PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            current.setStatus(RatingRecalculation.Status.FINISHED);
+            current.setFinishedAt(new Date());
+            return current;
+        }
+
+        List<Ship> recalculated = recalculate(rows);
+        int updated = shipRepository.updateRatings(recalculated, batchSize);
+        current.advance((Long) rows.get(rows.size() - 1)[0], rows.size(), updated);
+        if (updated > 0) {
+            shipListCache.invalidateAfterCommit();
+            shipReadReplica.onChanged(recalculated.stream().map(Ship::getId).collect(Collectors.toList()));
+        }
+
+        return current;
+    }
+
+    private RatingRecalculation fail(String error) {
+        RatingRecalculation saved = recalculationRepository.findById(JOB_ID).orElse(null);
+        if (saved != null) {
+            saved.setStatus(RatingRecalculation.Status.FAILED);
+            saved.setError(error);
+        }
+        return saved;
+    }
+
+    /**
+     * Причина остановки возвращается клиенту, поэтому вместо сообщения исключения, в котором драйвер БД
+     * пишет SQL и значения, сохраняется постоянный текст: SQLState для ошибки БД, иначе класс исключения
+     */
+    private static String describe(Throwable e) {
+        Throwable cause = e;
+        while (true) {
+            if (cause instanceof SQLException && ((SQLException) cause).getSQLState() != null) {
+                return "Database error, SQLState " + ((SQLException) cause).getSQLState();
+            }
+            if (cause.getCause() == null || cause.getCause() == cause) break;
+            cause = cause.getCause();
+        }
+        return "Rating recalculation failed: " + cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Метод пересчитывает рейтинги порции в пуле ForkJoin
+     *
+     * @param rows строки вида [id, prodDate, isUsed, speed, rating]
+     * @return возвращает корабли, у которых рейтинг изменился, в порядке строк
+     */
+    private List<Ship> recalculate(List<Object[]> rows) {
+        try {
+            return pool.submit(() -> rows.parallelStream()
+                    .map(CalcRatingShipUtility::recalcRatingShip)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rating recalculation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rating recalculation failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.space.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.space.Specification.ShipFilter;
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов фильтрации кораблей
+ * <p>
+ * Хранит страницы списка кораблей и количество кораблей по ключу из параметров фильтра,
+ * поэтому повторные запросы GET /rest/ships и GET /rest/ships/count с теми же параметрами
+ * не обращаются к БД. Размер кэша ограничен, вытесняются редко используемые записи.
+ * Любое изменение кораблей через {@link ShipService} после фиксации транзакции сбрасывает весь кэш.
+ */
+@Component
+public class ShipListCache {
+
+    private final Cache<Map.Entry<ShipFilter, Pageable>, List<Ship>> pages;
+    private final Cache<ShipFilter, Long> counts;
+    private final AtomicLong generation = new AtomicLong();
+    private final ReadWriteLock invalidation = new ReentrantReadWriteLock();
+    private final boolean enabled;
+
+    public ShipListCache(@Value("${cache.list.enabled:true}") boolean enabled,
+                         @Value("${cache.list.maximumSize:1000}") long maximumSize,
+                         @Value("${cache.list.expireAfterWriteSeconds:60}") long expireAfterWriteSeconds) {
+        this.enabled = enabled;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Метод возвращает страницу кораблей из кэша, либо загружает ее и сохраняет в кэш
+     *
+     * @param filter   параметры фильтра
+     * @param pageable параметры страницы и сортировки
+     * @param loader   загрузка страницы из БД
+     * @return возвращает неизменяемый список кораблей
+     */
+    public List<Ship> getPage(ShipFilter filter, Pageable pageable, Supplier<List<Ship>> loader) {
+        return get(pages, new AbstractMap.SimpleImmutableEntry<>(filter, pageable),
+                () -> Collections.unmodifiableList(loader.get()));
+    }
+
+    /**
+     * Метод возвращает количество кораблей из кэша, либо подсчитывает его и сохраняет в кэш
+     *
+     * @param filter параметры фильтра
+     * @param loader подсчет количества кораблей в БД
+     * @return возвращает количество кораблей
+     */
+    public long getCount(ShipFilter filter, Supplier<Long> loader) {
+        return get(counts, filter, loader);
+    }
+
+    /**
+     * Метод сбрасывает кэш после успешной фиксации текущей транзакции
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Метод сбрасывает весь кэш
+     */
+    public void invalidateAll() {
+        invalidation.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            pages.invalidateAll();
+            counts.invalidateAll();
+        } finally {
+            invalidation.writeLock().unlock();
+        }
+    }
+
+    public long getSize() {
+        return pages.estimatedSize() + counts.estimatedSize();
+    }
+
+    public long getHitCount() {
+        return stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return stats().evictionCount();
+    }
+
+    /**
+     * @return возвращает долю попаданий в кэш от 0 до 1
+     */
+    public double getHitRatio() {
+        return stats().hitRate();
+    }
+
+    private CacheStats stats() {
+        return pages.stats().plus(counts.stats());
+    }
+
+    /**
+     * Значение, загруженное во время изменения кораблей, в кэш не сохраняется,
+     * иначе после сброса кэша в нем может остаться результат, прочитанный до фиксации изменений.
+     * Проверка поколения и сохранение выполняются под блокировкой чтения, а сброс - под блокировкой записи,
+     * поэтому сброс не может произойти между проверкой и сохранением
+     */
+    private <K, V> V get(Cache<K, V> cache, K key, Supplier<V> loader) {
+        if (!enabled) return loader.get();
+
+        V value = cache.getIfPresent(key);
+        if (value != null) return value;
+
+        long loadedGeneration = generation.get();
+        value = loader.get();
+        invalidation.readLock().lock();
+        try {
+            if (generation.get() == loadedGeneration) cache.put(key, value);
+        } finally {
+            invalidation.readLock().unlock();
+        }
+        return value;
+    }
+}
@@ -1,12 +1,18 @@
 package com.space.service;
 
-import com.space.controller.ShipOrder;
+import com.space.Specification.ShipFilter;
 import com.space.model.Ship;
-import com.space.model.ShipType;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipField;
+import com.space.model.ShipView;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author Ivan Kurilov on 18.06.2020
@@ -14,18 +20,96 @@ import java.util.List;
 
 public interface ShipService {
 
+    /**
+     * Метод возвращает подготовленный запрос к БД с использованием {@link Specification} по параметрам фильтра
+     * Фильтры name и planet дополнительно сужаются по индексу поиска по подстроке
+     *
+     * @param filter параметры фильтра кораблей
+     * @return возвращает фильтр кораблей
+     */
+    Specification<Ship> getSpecification(ShipFilter filter);
+
     /**
      * Метод для получения списка всех кораблей на основе фильтра
      * Для получение списка кораблей используется {@link Pageable}
-     * Для фильтра используется {@link Specification}
+     * Повторные запросы с теми же параметрами обслуживаются из {@link ShipListCache}
      *
-     * @param spec     передается подготовленный запрос к БД с использованием {@link Specification},
-     *                 который используется в качестве фильтра
+     * @param filter   параметры фильтра кораблей
      * @param pageable передается объект для постраничного вывода списка кораблей с использованием сортировки
      * @return возвращает список всех кораблей, если не указан ни один параметр фильтра,
      * либо возвращает список кораблей с учетом фильтра
      */
-    List<Ship> getAllShips(Specification<Ship> spec, Pageable pageable);
+    List<Ship> getAllShips(ShipFilter filter, Pageable pageable);
+
+    /**
+     * Метод для получения списка кораблей на основе фильтра обычным JDBC запросом
+     * Корабли не проходят через контекст персистентности Hibernate, кэш списков и копию таблицы в памяти
+     *
+     * @param filter   параметры фильтра кораблей
+     * @param pageable передается объект для постраничного вывода списка кораблей с использованием сортировки
+     * @return возвращает неизменяемые представления кораблей с учетом фильтра
+     */
+    List<ShipView> getAllShipViews(ShipFilter filter, Pageable pageable);
+
+    /**
+     * Метод получения корабля по идентификатору обычным JDBC запросом
+     *
+     * @param id идентификатор корабля
+     * @return возвращает неизменяемое представление корабля, либо null, если корабль не найден
+     */
+    ShipView getShipViewById(Long id);
+
+    /**
+     * Метод возвращает, читаются ли списки и отдельные корабли по умолчанию через JDBC
+     * Задается свойством read.jdbc.enabled, клиент может выбрать способ чтения в запросе
+     *
+     * @return возвращает true, если по умолчанию используется JDBC
+     */
+    boolean isJdbcReadEnabled();
+
+    /**
+     * Метод для получения страницы кораблей на основе фильтра
+     * В отличие от {@link org.springframework.data.domain.Page} общее количество кораблей
+     * не подсчитывается, страница загружается одним запросом к БД
+     *
+     * @param spec     передается подготовленный запрос к БД с использованием {@link Specification},
+     *                 который используется в качестве фильтра
+     * @param pageable передается объект для постраничного вывода списка кораблей с использованием сортировки
+     * @return возвращает страницу кораблей с признаком наличия следующей страницы
+     */
+    Slice<Ship> getSliceShips(Specification<Ship> spec, Pageable pageable);
+
+    /**
+     * Метод для получения списка кораблей на основе фильтра, в котором у каждого корабля только указанные поля
+     * Из БД выбираются только столбцы этих полей, сущности не загружаются
+     *
+     * @param filter   параметры фильтра кораблей
+     * @param pageable передается объект для постраничного вывода списка кораблей с использованием сортировки
+     * @param fields   поля, которые нужно вернуть
+     * @return возвращает список кораблей, каждый корабль - словарь имени поля и значения в порядке fields
+     */
+    List<Map<String, Object>> getAllShipFields(ShipFilter filter, Pageable pageable, List<ShipField> fields);
+
+    /**
+     * Метод для получения страницы кораблей, в которой у каждого корабля только указанные поля
+     *
+     * @param spec     передается подготовленный запрос к БД с использованием {@link Specification},
+     *                 который используется в качестве фильтра
+     * @param pageable передается объект для постраничного вывода списка кораблей с использованием сортировки
+     * @param fields   поля, которые нужно вернуть
+     * @return возвращает страницу кораблей с признаком наличия следующей страницы
+     */
+    Slice<Map<String, Object>> getSliceShipFields(Specification<Ship> spec, Pageable pageable, List<ShipField> fields);
+
+    /**
+     * Метод выгрузки всех кораблей согласно фильтра
+     * Корабли не собираются в список, а по одному передаются в consumer по мере чтения из БД
+     *
+     * @param filter   параметры фильтра кораблей
+     * @param sort     сортировка кораблей
+     * @param consumer обработка очередного корабля, например запись в поток ответа
+     */
+    void exportShips(ShipFilter filter, Sort sort, Consumer<Ship> consumer);
 
     /**
      * Метод используется для подсчета количества кораблей согласно фильтра
@@ -37,6 +121,16 @@ public interface ShipService {
      */
     List<Ship> getAllShips(Specification<Ship> spec);
 
+    /**
+     * Метод подсчитывает количество кораблей согласно фильтра
+     * Подсчет выполняется запросом COUNT на стороне БД, сами корабли не загружаются
+     * Повторные запросы с теми же параметрами обслуживаются из {@link ShipListCache}
+     *
+     * @param filter параметры фильтра кораблей
+     * @return возвращает количество кораблей, удовлетворяющих фильтру
+     */
+    long getCountShips(ShipFilter filter);
+
     /**
      * Метод создает новый корабль
      *
@@ -44,14 +138,26 @@ public interface ShipService {
      */
     void createShip(Ship ship);
 
+    /**
+     * Метод пакетного создания кораблей
+     * Каждый корабль проверяется отдельно, корабли с ошибками пропускаются и попадают в результат,
+     * остальные сохраняются в БД пакетами
+     *
+     * @param ships создаваемые корабли, null означает корабль, который не удалось прочитать из запроса
+     * @return возвращает идентификаторы созданных кораблей и ошибки по каждому не созданному кораблю
+     */
+    ShipBatchResult createShips(List<Ship> ships);
+
     /**
      * Метод выполняет обновление существующего корабля
+     * Корабль загружается один раз внутри транзакции, из новых значений копируются только непустые поля,
+     * в БД записываются только измененные столбцы
      *
+     * @param id         идентификатор корабля, который необходимо обновить
      * @param updateShip параметр содержит корабль с новыми значениями
-     * @param existShip  параметр содержит корабль, который необходимо обновить
-     * @return возвращает корабль с обновленными значениями
+     * @return возвращает корабль с обновленными значениями, либо null, если корабль не найден
      */
-    Ship updateShip(Ship updateShip, Ship existShip);
+    Ship updateShip(Long id, Ship updateShip);
 
     /**
      * Метод получения корабля по идентификатору
@@ -63,9 +169,33 @@ public interface ShipService {
 
     /**
      * Метод удаления корабля по идентификатору
+     * Корабль загружается один раз внутри транзакции
      *
      * @param id идентификатор корабля
+     * @return возвращает true если корабль был удален, false если корабль не найден
+     */
+    boolean deleteShip(Long id);
+
+    /**
+     * Метод удаляет все корабли согласно фильтра одним запросом DELETE
+     * Если включен индекс подстрок или копия кораблей в памяти, строки найденных кораблей блокируются,
+     * затем удаляются по идентификаторам, поэтому индекс и копия обновляются ровно для удаленных кораблей
+     *
+     * @param filter параметры фильтра кораблей, хотя бы один параметр должен быть указан
+     * @return возвращает количество удаленных кораблей
+     */
+    int deleteShips(ShipFilter filter);
+
+    /**
+     * Метод обновляет все корабли согласно фильтра одним запросом UPDATE
+     * Если включен индекс подстрок или копия кораблей в памяти или изменяется поле рейтинга, строки найденных
+     * кораблей блокируются, затем обновляются по идентификаторам. Изменяются только непустые поля. Если изменилась скорость, признак использования или дата производства,
+     * рейтинги пересчитываются {@link com.space.utility.CalcRatingShipUtility} и записываются пакетами
+     *
+     * @param filter     параметры фильтра кораблей, хотя бы один параметр должен быть указан
+     * @param updateShip параметр содержит новые значения полей
+     * @return возвращает количество обновленных кораблей
      */
-    void deleteShip(Long id);
+    int updateShips(ShipFilter filter, Ship updateShip);
 
 }
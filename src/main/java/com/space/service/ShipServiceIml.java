@@ -1,19 +1,37 @@
 package com.space.service;
 
+import com.space.Specification.ShipFilter;
+import com.space.Specification.ShipSpecification;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipField;
+import com.space.model.ShipView;
+import com.space.repository.ShipJdbcRepository;
 import com.space.repository.ShipRepository;
+import com.space.search.ShipReadReplica;
+import com.space.search.ShipSearchIndex;
 import com.space.utility.CalcRatingShipUtility;
+import com.space.utility.MergeShipUtility;
 import com.space.utility.ValidationShipsUtility;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
+ * Методы чтения выполняются в read-only транзакциях: Hibernate не хранит снимки загруженных кораблей
+ * и не сбрасывает контекст при фиксации, а при настроенных репликах запросы уходят на них
+ *
  * @author Ivan Kurilov on 18.06.2020
  */
 
@@ -22,26 +40,127 @@ import java.util.List;
 public class ShipServiceIml implements ShipService {
 
     private ShipRepository shipRepository;
+    private ShipSearchIndex shipSearchIndex;
+    private ShipListCache shipListCache;
+    private ShipReadReplica shipReadReplica;
+    private ShipJdbcRepository shipJdbcRepository;
+
+    @Value("${db.batch.size:500}")
+    private int batchSize;
+
+    @Value("${db.export.fetchSize:1000}")
+    private int exportFetchSize;
+
+    @Value("${read.jdbc.enabled:false}")
+    private boolean jdbcReadEnabled;
 
     public ShipServiceIml() {
     }
 
     @Autowired
-    public ShipServiceIml(ShipRepository shipRepository) {
+    public ShipServiceIml(ShipRepository shipRepository, ShipSearchIndex shipSearchIndex, ShipListCache shipListCache,
+                          ShipReadReplica shipReadReplica, ShipJdbcRepository shipJdbcRepository) {
         this.shipRepository = shipRepository;
+        this.shipSearchIndex = shipSearchIndex;
+        this.shipListCache = shipListCache;
+        this.shipReadReplica = shipReadReplica;
+        this.shipJdbcRepository = shipJdbcRepository;
+    }
+
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Specification<Ship> getSpecification(ShipFilter filter) {
+        return ShipSpecification.getAllSpecification(filter)
+                .and(shipSearchIndex.getCandidateSpecification(filter.getName(), filter.getPlanet()));
+    }
+
+    /**
+     * Страница отдается копией таблицы в памяти, если она включена, иначе из кэша списков или БД
+     * Транзакция открывается только при обращении к БД, чтобы копия не занимала соединение
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Ship> getAllShips(ShipFilter filter, Pageable pageable) {
+        List<Ship> ships = shipReadReplica.findPage(filter, pageable);
+        if (ships != null) return ships;
+
+        return shipListCache.getPage(filter, pageable,
+                () -> shipRepository.findSlice(filter, getCandidateIds(filter), pageable).getContent());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ShipView> getAllShipViews(ShipFilter filter, Pageable pageable) {
+        return shipJdbcRepository.findPage(filter, getCandidateIds(filter), pageable);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ShipView getShipViewById(Long id) {
+        return shipJdbcRepository.findById(id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isJdbcReadEnabled() {
+        return jdbcReadEnabled;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Ship> getSliceShips(Specification<Ship> spec, Pageable pageable) {
+        return shipRepository.findSlice(spec, pageable);
+    }
+
+    /**
+     * Копия таблицы в памяти уже хранит корабли целиком, поэтому из нее поля берутся без обращения к БД
+     * Кэш списков не используется: проекции разных полей разделили бы его емкость с полными страницами
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> getAllShipFields(ShipFilter filter, Pageable pageable, List<ShipField> fields) {
+        List<Ship> ships = shipReadReplica.findPage(filter, pageable);
+        if (ships == null) return getSliceShipFields(getSpecification(filter), pageable, fields).getContent();
+
+        List<Map<String, Object>> result = new ArrayList<>(ships.size());
+        for (Ship ship : ships) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (ShipField field : fields) {
+                values.put(field.getFieldName(), field.getValue(ship));
+            }
+            result.add(values);
+        }
+        return result;
+    }
 
     @Override
-    public List<Ship> getAllShips(Specification<Ship> spec, Pageable pageable) {
-        return shipRepository.findAll(spec, pageable).getContent();
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getSliceShipFields(Specification<Ship> spec, Pageable pageable, List<ShipField> fields) {
+        return shipRepository.findSliceFields(spec, pageable, fields);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Ship> getAllShips(Specification<Ship> spec) {
         return shipRepository.findAll(spec);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportShips(ShipFilter filter, Sort sort, Consumer<Ship> consumer) {
+        shipRepository.scrollAll(getSpecification(filter), sort, exportFetchSize, consumer);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public long getCountShips(ShipFilter filter) {
+        long count = shipReadReplica.count(filter);
+        if (count >= 0) return count;
+
+        return shipListCache.getCount(filter, () -> shipRepository.count(filter, getCandidateIds(filter)));
+    }
+
     @Override
     public void createShip(Ship ship) {
 
@@ -57,46 +176,175 @@ public class ShipServiceIml implements ShipService {
 
 
         shipRepository.save(ship);
+        shipSearchIndex.onSave(ship);
+        shipReadReplica.onChanged(ship.getId());
+        shipListCache.invalidateAfterCommit();
     }
 
     @Override
-    public Ship updateShip(Ship ship, Ship existsShip) {
+    public ShipBatchResult createShips(List<Ship> ships) {
+        ShipBatchResult result = new ShipBatchResult();
 
-        if (ValidationShipsUtility.isShipNotValid(ship)) {
-            throw new IllegalArgumentException();
+        List<Ship> validShips = new ArrayList<>(ships.size());
+        List<Integer> positions = new ArrayList<>(ships.size());
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            if (ship == null) {
+                result.addError(i, "Ship can not be read");
+                continue;
+            }
+            if (ValidationShipsUtility.isRequiredParamsMissing(ship) || ValidationShipsUtility.isShipNotValid(ship)) {
+                result.addError(i, "Ship parameters are not valid");
+                continue;
+            }
+
+            ship.setId(null);
+            if (ship.getUsed() == null) {
+                ship.setUsed(false);
+            }
+            ship.setRating(CalcRatingShipUtility.calcRatingShip(ship));
+
+            validShips.add(ship);
+            positions.add(i);
         }
 
-        Field[] fields = existsShip.getClass().getDeclaredFields();
-        for (Field field : fields) {
-            field.setAccessible(true);
-            try {
-                if (!field.getName().equals("id") && !field.getName().equals("rating")) {
-                    Object value = field.get(ship);
-                    if (value == null) {
-                        value = field.get(getShipById(existsShip.getId()));
-                    }
-                    field.set(existsShip, value);
-                }
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
+        Map<Integer, String> insertErrors = shipRepository.insertAll(validShips, batchSize);
+
+        List<Ship> createdShips = new ArrayList<>(validShips.size());
+        for (int i = 0; i < validShips.size(); i++) {
+            String error = insertErrors.get(i);
+            if (error == null) {
+                createdShips.add(validShips.get(i));
+                result.addCreated(validShips.get(i).getId());
+            } else {
+                result.addError(positions.get(i), error);
             }
         }
+        result.getErrors().sort(Comparator.comparingInt(ShipBatchResult.Error::getIndex));
+
+        if (!createdShips.isEmpty()) {
+            shipSearchIndex.onSaveAll(createdShips);
+            List<Long> createdIds = new ArrayList<>(createdShips.size());
+            for (Ship ship : createdShips) createdIds.add(ship.getId());
+            shipReadReplica.onChanged(createdIds);
+            shipListCache.invalidateAfterCommit();
+        }
+        return result;
+    }
+
+    @Override
+    public Ship updateShip(Long id, Ship ship) {
 
-        existsShip.setRating(CalcRatingShipUtility.calcRatingShip(existsShip));
+        Ship existsShip = getShipById(id);
+        if (existsShip == null) return null;
+
+        if (ValidationShipsUtility.isShipNotValid(ship)) {
+            throw new IllegalArgumentException();
+        }
 
+        if (MergeShipUtility.mergeShip(ship, existsShip)) {
+            Double rating = CalcRatingShipUtility.calcRatingShip(existsShip);
+            if (!rating.equals(existsShip.getRating())) existsShip.setRating(rating);
+            shipSearchIndex.onSave(existsShip);
+            shipReadReplica.onChanged(id);
+            shipListCache.invalidateAfterCommit();
+        }
 
-        return shipRepository.save(existsShip);
+        return existsShip;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Ship getShipById(Long id) {
         return shipRepository.findById(id).orElse(null);
     }
 
     @Override
-    public void deleteShip(Long id) {
-        shipRepository.deleteById(id);
+    public boolean deleteShip(Long id) {
+        Ship ship = getShipById(id);
+        if (ship == null) return false;
+
+        shipRepository.delete(ship);
+        shipSearchIndex.onDelete(id);
+        shipReadReplica.onChanged(id);
+        shipListCache.invalidateAfterCommit();
+        return true;
+    }
+
+    @Override
+    public int deleteShips(ShipFilter filter) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+
+        if (!tracksChangedIds()) {
+            int deleted = shipRepository.deleteAll(getSpecification(filter));
+            if (deleted > 0) shipListCache.invalidateAfterCommit();
+            return deleted;
+        }
+
+        List<Long> ids = shipRepository.findIdsForUpdate(getSpecification(filter));
+        if (ids.isEmpty()) return 0;
+
+        int deleted = shipRepository.deleteByIds(ids);
+        shipSearchIndex.onDeleteAll(ids);
+        shipReadReplica.onChanged(ids);
+        shipListCache.invalidateAfterCommit();
+        return deleted;
+    }
+
+    @Override
+    public int updateShips(ShipFilter filter, Ship ship) {
+        if (filter.isEmpty() || MergeShipUtility.isEmpty(ship) || ValidationShipsUtility.isShipNotValid(ship)) {
+            throw new IllegalArgumentException();
+        }
+
+        boolean ratingChanged = ship.getSpeed() != null || ship.getUsed() != null || ship.getProdDate() != null;
+        if (!ratingChanged && !tracksChangedIds()) {
+            int updated = shipRepository.updateAll(getSpecification(filter), ship);
+            if (updated > 0) shipListCache.invalidateAfterCommit();
+            return updated;
+        }
+
+        List<Long> ids = shipRepository.findIdsForUpdate(getSpecification(filter));
+        if (ids.isEmpty()) return 0;
+
+        int updated = shipRepository.updateByIds(ids, ship);
+        if (ratingChanged) {
+            recalculateRatings(ids);
+        }
+        if (ship.getName() != null || ship.getPlanet() != null) {
+            shipSearchIndex.onUpdateAll(ids, ship.getName(), ship.getPlanet());
+        }
+        shipReadReplica.onChanged(ids);
+        shipListCache.invalidateAfterCommit();
+        return updated;
+    }
+
+    /**
+     * Идентификаторы измененных кораблей нужны только индексу подстрок и копии кораблей в памяти,
+     * без них изменение по фильтру выполняется одним запросом, а не выборкой идентификаторов с блокировкой
+     */
+    private boolean tracksChangedIds() {
+        return shipSearchIndex.isEnabled() || shipReadReplica.isEnabled();
     }
 
+    /**
+     * Рейтинги считаются той же формулой, что и при изменении одного корабля, а не выражением SQL,
+     * округление и год производства которого отличаются от {@link CalcRatingShipUtility}
+     */
+    private void recalculateRatings(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Ship> ships = new ArrayList<>();
+            for (Object[] row : shipRepository.findRatingFields(ids.subList(from, Math.min(from + batchSize, ids.size())))) {
+                Ship recalculated = CalcRatingShipUtility.recalcRatingShip(row);
+                if (recalculated != null) ships.add(recalculated);
+            }
+            shipRepository.updateRatings(ships, batchSize);
+        }
+    }
 
+    private long[] getCandidateIds(ShipFilter filter) {
+        return shipSearchIndex.getCandidateIds(filter.getName(), filter.getPlanet());
+    }
 }
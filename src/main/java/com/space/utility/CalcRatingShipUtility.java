@@ -4,7 +4,10 @@ import com.space.model.Ship;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.TimeZone;
 
 /**
@@ -12,6 +15,30 @@ import java.util.TimeZone;
  */
 public class CalcRatingShipUtility {
 
+    /**
+     * Текущий год («сейчас» 3019 год)
+     */
+    public static final int CURRENT_YEAR = 3019;
+
+    private static final String TIME_ZONE = "Europe/Moscow";
+
+    /**
+     * Начала годов по московскому времени в миллисекундах от 01.01.1970, YEAR_STARTS[i] - начало года FIRST_YEAR + i
+     * Диапазон покрывает допустимые годы производства 2800 - 3019 с запасом, но начинается после перехода
+     * на григорианский календарь, где {@link Calendar} и java.time считают год одинаково
+     */
+    private static final int FIRST_YEAR = 1900;
+    private static final int LAST_YEAR = 3100;
+    private static final long[] YEAR_STARTS = new long[LAST_YEAR - FIRST_YEAR + 2];
+    private static final long AVERAGE_YEAR_MILLIS = 31556952000L;
+
+    static {
+        ZoneId zone = ZoneId.of(TIME_ZONE);
+        for (int i = 0; i < YEAR_STARTS.length; i++) {
+            YEAR_STARTS[i] = ZonedDateTime.of(FIRST_YEAR + i, 1, 1, 0, 0, 0, 0, zone).toInstant().toEpochMilli();
+        }
+    }
+
     /**
      * Метод расчета райтинга коробля
      * <p>
@@ -26,15 +53,103 @@ public class CalcRatingShipUtility {
      * @return возвращает значение рейтинга коробля
      */
     public static Double calcRatingShip(Ship ship) {
+        return calcRating(ship.getSpeed(), ship.getUsed(), ship.getProdDate().getTime());
+    }
 
-        double k = ship.getUsed() ? 0.5 : 1.0;
+    /**
+     * Метод расчета райтинга коробля по значениям его полей без создания промежуточных объектов
+     * Результат совпадает с округлением BigDecimal до сотых по правилу HALF_EVEN
+     *
+     * @param speed    скорость коробля
+     * @param used     признак использованного корабля
+     * @param prodDate дата выпуска корабля в миллисекундах от 01.01.1970
+     * @return возвращает значение рейтинга коробля
+     */
+    public static double calcRating(double speed, boolean used, long prodDate) {
+        double k = used ? 0.5 : 1.0;
+
+        return roundHalfEven(80 * speed * k / (CURRENT_YEAR - getProdYear(prodDate) + 1));
+    }
+
+    /**
+     * Метод пересчитывает рейтинг корабля по строке [id, prodDate, isUsed, speed, rating],
+     * которую возвращает ShipRepository.findRatingFields
+     *
+     * @param row поля корабля, от которых зависит рейтинг, и текущий рейтинг
+     * @return возвращает корабль с новым рейтингом, либо null, если рейтинг не изменился или его нельзя посчитать
+     */
+    public static Ship recalcRatingShip(Object[] row) {
+        Date prodDate = (Date) row[1];
+        Boolean used = (Boolean) row[2];
+        Double speed = (Double) row[3];
+        if (prodDate == null || used == null || speed == null) return null;
 
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Europe/Moscow"));
-        calendar.setTime(ship.getProdDate());
+        double rating = calcRating(speed, used, prodDate.getTime());
+        if (row[4] != null && (Double) row[4] == rating) return null;
+
+        Ship ship = new Ship();
+        ship.setId((Long) row[0]);
+        ship.setProdDate(prodDate);
+        ship.setUsed(used);
+        ship.setSpeed(speed);
+        ship.setRating(rating);
+        return ship;
+    }
+
+    /**
+     * Метод возвращает год выпуска корабля
+     *
+     * @param prodDate дата выпуска корабля
+     * @return возвращает год выпуска по московскому времени
+     */
+    public static int getProdYear(Date prodDate) {
+        return getProdYear(prodDate.getTime());
+    }
+
+    /**
+     * Метод возвращает год выпуска корабля
+     * Год находится по заранее рассчитанным началам годов, за пределами таблицы через {@link Calendar}
+     *
+     * @param prodDate дата выпуска корабля в миллисекундах от 01.01.1970
+     * @return возвращает год выпуска по московскому времени
+     */
+    public static int getProdYear(long prodDate) {
+        int last = YEAR_STARTS.length - 1;
+        if (prodDate < YEAR_STARTS[0] || prodDate >= YEAR_STARTS[last]) {
+            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(TIME_ZONE));
+            calendar.setTimeInMillis(prodDate);
+            return calendar.get(Calendar.YEAR);
+        }
+
+        // средняя длина года дает индекс с точностью до соседнего года
+        int i = (int) Math.min((prodDate - YEAR_STARTS[0]) / AVERAGE_YEAR_MILLIS, last - 1);
+        while (prodDate < YEAR_STARTS[i]) i--;
+        while (prodDate >= YEAR_STARTS[i + 1]) i++;
+
+        return FIRST_YEAR + i;
+    }
+
+    /**
+     * Метод округляет значение до сотых по правилу HALF_EVEN
+     * <p>
+     * Результат совпадает с BigDecimal.valueOf(value).setScale(2, HALF_EVEN).doubleValue().
+     * Если value * 100 далеко от половины, направление округления определяется без BigDecimal,
+     * а деление целого числа сотых на 100 дает тот же double, что и BigDecimal.doubleValue().
+     * Значения у самой границы половины, очень большие и не конечные считаются через BigDecimal.
+     *
+     * @param value округляемое значение
+     * @return возвращает значение, округленное до сотых
+     */
+    public static double roundHalfEven(double value) {
+        double scaled = value * 100;
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
 
-        int prodDate = calendar.get(Calendar.YEAR);
+        if (Math.abs(scaled) < 1e15 && Math.abs(fraction - 0.5) > 1e-9 * (1 + Math.abs(scaled))) {
+            // + 0.0 превращает -0.0 в 0.0, как BigDecimal
+            return (fraction < 0.5 ? floor : floor + 1) / 100 + 0.0;
+        }
 
-        return BigDecimal.valueOf((80 * ship.getSpeed() * k) / (3019 - prodDate + 1))
-                .setScale(2, RoundingMode.HALF_EVEN).doubleValue();
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_EVEN).doubleValue();
     }
 }
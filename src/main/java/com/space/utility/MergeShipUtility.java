@@ -0,0 +1,76 @@
+package com.space.utility;
+
+import com.space.model.Ship;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+public class MergeShipUtility {
+
+    /**
+     * Поля корабля, которые можно изменить при обновлении
+     * Идентификатор и рейтинг не копируются, рейтинг пересчитывается отдельно
+     */
+    private static final ShipField<?>[] FIELDS = {
+            new ShipField<>(Ship::getName, Ship::setName),
+            new ShipField<>(Ship::getPlanet, Ship::setPlanet),
+            new ShipField<>(Ship::getShipType, Ship::setShipType),
+            new ShipField<>(Ship::getProdDate, Ship::setProdDate),
+            new ShipField<>(Ship::getUsed, Ship::setUsed),
+            new ShipField<>(Ship::getSpeed, Ship::setSpeed),
+            new ShipField<>(Ship::getCrewSize, Ship::setCrewSize)
+    };
+
+    /**
+     * Метод частичного обновления корабля (merge-patch)
+     * <p>
+     * Копирует в обновляемый корабль все непустые поля из корабля с новыми значениями.
+     * Пустые поля пропускаются, поэтому в обновляемом корабле остаются прежние значения.
+     * Поле записывается только если значение изменилось, вместе с {@link org.hibernate.annotations.DynamicUpdate}
+     * это дает UPDATE только измененных столбцов.
+     *
+     * @param source корабль с новыми значениями
+     * @param target обновляемый корабль
+     * @return возвращает true если хотя бы одно поле изменилось
+     */
+    public static boolean mergeShip(Ship source, Ship target) {
+        boolean changed = false;
+        for (ShipField<?> field : FIELDS) {
+            changed |= field.copy(source, target);
+        }
+        return changed;
+    }
+
+    /**
+     * Метод проверяет, что в корабле с новыми значениями не указано ни одно изменяемое поле
+     *
+     * @param source корабль с новыми значениями
+     * @return возвращает true если все изменяемые поля пустые
+     */
+    public static boolean isEmpty(Ship source) {
+        for (ShipField<?> field : FIELDS) {
+            if (field.getter.apply(source) != null) return false;
+        }
+        return true;
+    }
+
+    private static final class ShipField<T> {
+
+        private final Function<Ship, T> getter;
+        private final BiConsumer<Ship, T> setter;
+
+        private ShipField(Function<Ship, T> getter, BiConsumer<Ship, T> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private boolean copy(Ship source, Ship target) {
+            T value = getter.apply(source);
+            if (value == null || Objects.equals(value, getter.apply(target))) return false;
+
+            setter.accept(target, value);
+            return true;
+        }
+    }
+}
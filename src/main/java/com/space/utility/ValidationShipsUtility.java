@@ -2,11 +2,7 @@ package com.space.utility;
 
 import com.space.model.Ship;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Calendar;
 import java.util.Date;
-import java.util.TimeZone;
 
 /**
  * @author Ivan Kurilov on 19.06.2020
@@ -37,6 +33,22 @@ public class ValidationShipsUtility {
                 || isProdDateNotValid(ship.getProdDate());
     }
 
+    /**
+     * Метод проверяет, что у создаваемого корабля указаны все обязательные параметры:
+     * “name”, “planet”, “shipType”, “prodDate”, “speed” и “crewSize”
+     *
+     * @param ship в качестве параметра передается создаваемы корабль
+     * @return возвращает true если хотя бы один обязательный параметр не указан
+     */
+    public static boolean isRequiredParamsMissing(Ship ship) {
+        return ship.getName() == null
+                || ship.getPlanet() == null
+                || ship.getShipType() == null
+                || ship.getProdDate() == null
+                || ship.getSpeed() == null
+                || ship.getCrewSize() == null;
+    }
+
     /**
      * Метод проверяет ограничение длинны параметра name,
      * которое не должно превышать 50 символов
@@ -80,8 +92,7 @@ public class ValidationShipsUtility {
      */
     private static boolean isSpeedNotValid(Double speed) {
         if (speed != null) {
-            double roundSpeed = BigDecimal.valueOf(speed)
-                    .setScale(2, RoundingMode.HALF_EVEN).doubleValue();
+            double roundSpeed = CalcRatingShipUtility.roundHalfEven(speed);
 
             return roundSpeed < 0.01 || roundSpeed > 0.99;
 
@@ -100,13 +111,9 @@ public class ValidationShipsUtility {
      */
     private static boolean isProdDateNotValid(Date date) {
         if (date != null) {
-            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Europe/Moscow"));
-            calendar.setTime(date);
-
-            int prodDate = calendar.get(Calendar.YEAR);
-
+            int prodDate = CalcRatingShipUtility.getProdYear(date.getTime());
 
-            return date.getTime() < 0 && prodDate < 2800 || prodDate > 3019;
+            return date.getTime() < 0 && prodDate < 2800 || prodDate > CalcRatingShipUtility.CURRENT_YEAR;
         }
         return false;
     }
@@ -0,0 +1,16 @@
+-- Equality filters shipType and isUsed are almost always combined with a range filter or ORDER BY on rating,
+-- so the equality columns go first and the range/sort column last.
+CREATE INDEX ix_ship_type_used_rating ON ship (shipType, isUsed, rating);
+CREATE INDEX ix_ship_type_used_prodDate ON ship (shipType, isUsed, prodDate);
+
+-- Range filters that are also ShipOrder sort keys: the index serves both the WHERE range and the ORDER BY,
+-- id is the tie-breaker of the keyset pagination.
+CREATE INDEX ix_ship_speed ON ship (speed, id);
+CREATE INDEX ix_ship_prodDate ON ship (prodDate, id);
+CREATE INDEX ix_ship_rating ON ship (rating, id);
+
+CREATE INDEX ix_ship_crewSize ON ship (crewSize);
+
+-- LIKE '%x%' cannot seek a B-tree, but COUNT queries can scan these narrow indexes instead of the table.
+CREATE INDEX ix_ship_name ON ship (name);
+CREATE INDEX ix_ship_planet ON ship (planet);
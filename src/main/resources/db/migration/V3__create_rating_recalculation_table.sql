@@ -0,0 +1,14 @@
+-- Checkpoint of the rating recalculation job: last_id is the keyset position of the last committed chunk,
+-- it is written in the same transaction as the chunk ratings, so a restarted job continues right after it.
+CREATE TABLE IF NOT EXISTS rating_recalculation
+(
+    id          VARCHAR(20) NOT NULL,
+    status      VARCHAR(10) NOT NULL,
+    last_id     BIGINT(20)  NOT NULL,
+    total       BIGINT(20)  NOT NULL,
+    processed   BIGINT(20)  NOT NULL,
+    updated     BIGINT(20)  NOT NULL,
+    started_at  TIMESTAMP   NOT NULL,
+    finished_at TIMESTAMP   NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,3 @@
+-- Reason the rating recalculation job stopped with status FAILED, cleared when the job is resumed.
+ALTER TABLE rating_recalculation
+    ADD COLUMN error VARCHAR(500) NULL;
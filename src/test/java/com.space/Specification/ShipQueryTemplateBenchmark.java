@@ -0,0 +1,94 @@
+package com.space.Specification;
+
+import com.space.config.BenchmarkContext;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Подготовка запроса страницы кораблей до обращения к БД: дерево Criteria API из {@link ShipSpecification}
+ * против шаблона {@link ShipQueryTemplate}
+ * <p>
+ * fixed - на каждом вызове одни и те же значения фильтра, varying - новые значения скорости и экипажа,
+ * которые Criteria API подставляет в текст запроса, поэтому Hibernate каждый раз разбирает новый JPQL.
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipQueryTemplateBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipQueryTemplateBenchmark {
+
+    private static final Sort SORT = Sort.by("rating");
+
+    @Param({"fixed", "varying"})
+    private String values;
+
+    private EntityManager entityManager;
+    private CriteriaBuilder cb;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        cb = entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+    }
+
+    @Benchmark
+    public TypedQuery<Ship> specification() {
+        ShipFilter filter = nextFilter();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(root)
+                .where(ShipSpecification.getAllSpecification(filter).toPredicate(root, query, cb))
+                .orderBy(toOrders(SORT, root, cb));
+
+        return entityManager.createQuery(query).setMaxResults(11);
+    }
+
+    @Benchmark
+    public TypedQuery<Ship> template() {
+        ShipFilter filter = nextFilter();
+        ShipQueryTemplate template = ShipQueryTemplate.of(filter, null, SORT);
+
+        return template.bind(entityManager.createQuery(template.getSelectQuery(), Ship.class), filter, null)
+                .setMaxResults(11);
+    }
+
+    private ShipFilter nextFilter() {
+        int n = "fixed".equals(values) ? 0 : ++counter % 100000;
+        return new ShipFilter(null, null, ShipType.MILITARY, null, 33134734800000L, false,
+                0.1 + n / 1e6, 0.9, 10 + n, 5000, null, null);
+    }
+}
@@ -0,0 +1,85 @@
+package com.space.Specification;
+
+import com.space.config.BenchmarkContext;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение условий фильтра кораблей {@link ShipSpecification} в Criteria API
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipSpecificationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipSpecificationBenchmark {
+
+    private static final ShipFilter EMPTY_FILTER = new ShipFilter(
+            null, null, null, null, null, null, null, null, null, null, null, null);
+    private static final ShipFilter FULL_FILTER = new ShipFilter(
+            "Orion", "Mars", ShipType.MILITARY,
+            26192235600000L, 33134734800000L,
+            false,
+            0.1, 0.9,
+            10, 5000,
+            0.5, 50.0);
+
+    private EntityManager entityManager;
+    private CriteriaBuilder cb;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        cb = entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+    }
+
+    @Benchmark
+    public Predicate emptyFilter() {
+        return toPredicate(ShipSpecification.getAllSpecification(EMPTY_FILTER));
+    }
+
+    @Benchmark
+    public Predicate fullFilter() {
+        return toPredicate(ShipSpecification.getAllSpecification(FULL_FILTER));
+    }
+
+    @Benchmark
+    public Predicate idInFilter() {
+        return toPredicate(ShipSpecification.getIdInSpecification(new long[]{1, 5, 8, 13, 21, 34}));
+    }
+
+    private Predicate toPredicate(Specification<Ship> spec) {
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        return spec.toPredicate(root, query, cb);
+    }
+}
@@ -0,0 +1,61 @@
+package com.space.config;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+/**
+ * Контекст приложения для JMH бенчмарков с профилем dev: H2 в режиме MySQL и 40 кораблей из test.sql
+ * Один контекст на весь прогон бенчмарка, как у тестов в com.space.controller
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class, WebConfig.class);
+        context.refresh();
+
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public MockMvc getMockMvc() {
+        return mockMvc;
+    }
+
+    /**
+     * Выполняет запрос, для асинхронно обработанного запроса вместе с повторной диспетчеризацией
+     */
+    public MvcResult perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (!result.getRequest().isAsyncStarted()) return result;
+
+        result.getAsyncResult(10000);
+        return mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запрос к H2 в памяти через соединение, открываемое на каждый запрос, и через пул HikariCP
+ * <p>
+ * driverManager - {@link DriverManagerDataSource}, hikari - пул на {@value #THREADS} соединений.
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ConnectionPoolBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(ConnectionPoolBenchmark.THREADS)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    static final int THREADS = 8;
+
+    private static final String URL = "jdbc:h2:mem:pool_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Param({"driverManager", "hikari"})
+    private String dataSource;
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JdbcTemplate keeper = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        keeper.execute("CREATE TABLE IF NOT EXISTS ship (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(50), speed DOUBLE)");
+        for (int i = 0; i < 100; i++) {
+            keeper.update("INSERT INTO ship(name, speed) VALUES (?, ?)", "ship" + i, i / 100.0);
+        }
+
+        if ("hikari".equals(dataSource)) {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl(URL);
+            config.setUsername("sa");
+            config.setMaximumPoolSize(THREADS);
+            pool = new HikariDataSource(config);
+            jdbcTemplate = new JdbcTemplate(pool);
+        } else {
+            jdbcTemplate = keeper;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    @Benchmark
+    public Integer countFastShips() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship WHERE speed >= ?", Integer.class, 0.5);
+    }
+}
@@ -0,0 +1,83 @@
+package com.space.config;
+
+import com.space.metrics.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionPoolLoadTest {
+
+    private static final String URL = "jdbc:h2:mem:pool_load;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int THREADS = 8;
+    private static final int QUERIES_PER_THREAD = 500;
+
+    private static DriverManagerDataSource keeper;
+
+    @BeforeClass
+    public static void createTable() {
+        keeper = new DriverManagerDataSource(URL, "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(keeper);
+        jdbcTemplate.execute("CREATE TABLE ship (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(50), speed DOUBLE)");
+        for (int i = 0; i < 100; i++) {
+            jdbcTemplate.update("INSERT INTO ship(name, speed) VALUES (?, ?)", "ship" + i, i / 100.0);
+        }
+    }
+
+    @AfterClass
+    public static void dropTable() {
+        new JdbcTemplate(keeper).execute("DROP TABLE ship");
+    }
+
+    @Test
+    public void pooledDataSourceReusesConnections() throws Exception {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(URL);
+        config.setUsername("sa");
+        config.setMaximumPoolSize(THREADS);
+        config.setMetricsTrackerFactory(metrics);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            runQueries(dataSource);
+        }
+
+        assertEquals(THREADS * QUERIES_PER_THREAD, metrics.getAcquiredCount());
+        assertEquals(0, metrics.getTimeoutCount());
+        assertTrue("Пул не должен открывать больше соединений, чем потоков, открыто " + metrics.getCreatedCount(),
+                metrics.getCreatedCount() <= THREADS);
+    }
+
+    private void runQueries(DataSource dataSource) throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+                        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship WHERE speed >= ?", Integer.class, 0.5);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.space.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final String[] NODES = {"primary", "replica1", "replica2"};
+
+    private final List<DriverManagerDataSource> nodes = new ArrayList<>();
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Before
+    public void createNodes() {
+        for (String node : NODES) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:routing_" + node + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+            JdbcTemplate template = new JdbcTemplate(dataSource);
+            template.execute("CREATE TABLE node (name VARCHAR(20))");
+            template.update("INSERT INTO node VALUES (?)", node);
+            template.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+            template.update("INSERT INTO replica_lag VALUES (0)");
+            nodes.add(dataSource);
+        }
+
+        routing = new ReplicaRoutingDataSource(nodes.get(0), Arrays.<DataSource>asList(nodes.get(1), nodes.get(2)),
+                "SELECT seconds FROM replica_lag", 1000, 0, 60000);
+        jdbcTemplate = new JdbcTemplate(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @After
+    public void dropNodes() {
+        for (DriverManagerDataSource node : nodes) {
+            new JdbcTemplate(node).execute("DROP ALL OBJECTS");
+        }
+    }
+
+    //test1
+    @Test
+    public void readOnlyTransactionsAlternateReplicas() {
+        assertEquals(Arrays.asList("replica1", "replica2", "replica1", "replica2"),
+                Arrays.asList(readOnlyNode(), readOnlyNode(), readOnlyNode(), readOnlyNode()));
+
+        assertEquals("primary", readWrite.execute(status -> node()));
+        assertEquals("primary", node());
+        assertEquals(2, routing.getReplicaConnectionCount(0));
+        assertEquals(2, routing.getReplicaConnectionCount(1));
+    }
+
+    //test2
+    @Test
+    public void laggingReplicaIsSkippedUntilItCatchesUp() {
+        setLag(1, "5");
+        assertEquals(Arrays.asList("replica2", "replica2", "replica2"),
+                Arrays.asList(readOnlyNode(), readOnlyNode(), readOnlyNode()));
+        assertEquals(5000, routing.getReplicaLagMs(0));
+
+        setLag(1, "0.5");
+        assertEquals(new HashSet<>(Arrays.asList("replica1", "replica2")),
+                new HashSet<>(Arrays.asList(readOnlyNode(), readOnlyNode())));
+    }
+
+    //test3
+    @Test
+    public void primaryServesReadsWhenNoReplicaIsUsable() {
+        setLag(1, "NULL");
+        new JdbcTemplate(nodes.get(2)).execute("DROP TABLE replica_lag");
+
+        assertEquals(Arrays.asList("primary", "primary"), Arrays.asList(readOnlyNode(), readOnlyNode()));
+        assertEquals(Long.MAX_VALUE, routing.getReplicaLagMs(0));
+        assertEquals(Long.MAX_VALUE, routing.getReplicaLagMs(1));
+        assertEquals(0, routing.getReplicaConnectionCount(0) + routing.getReplicaConnectionCount(1));
+    }
+
+    //test4
+    @Test
+    public void readsStayOnPrimaryAfterWrite() {
+        readWrite.execute(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+
+        assertEquals(Arrays.asList("primary", "primary"), Arrays.asList(readOnlyNode(), readOnlyNode()));
+        assertEquals(0, routing.getReplicaConnectionCount(0) + routing.getReplicaConnectionCount(1));
+
+        ReplicaRoutingDataSource withoutWindow = new ReplicaRoutingDataSource(nodes.get(0),
+                Arrays.<DataSource>asList(nodes.get(1), nodes.get(2)), "SELECT seconds FROM replica_lag", 1000, 0, 0);
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(withoutWindow));
+        JdbcTemplate template = new JdbcTemplate(withoutWindow);
+        transactions.execute(status -> template.update("UPDATE node SET name = name"));
+        transactions.setReadOnly(true);
+
+        assertEquals("replica1", transactions.execute(status -> template.queryForObject("SELECT name FROM node", String.class)));
+    }
+
+    private String readOnlyNode() {
+        return readOnly.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private void setLag(int replica, String seconds) {
+        new JdbcTemplate(nodes.get(replica)).update("UPDATE replica_lag SET seconds = " + seconds);
+    }
+}
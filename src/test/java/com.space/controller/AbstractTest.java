@@ -3,6 +3,12 @@ package com.space.controller;
 import com.space.config.AppConfig;
 import com.space.config.MyWebAppInit;
 import com.space.config.WebConfig;
+import com.space.search.ShipReadReplica;
+import com.space.search.ShipSearchIndex;
+import com.space.service.ShipListCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +19,16 @@ import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
@@ -31,8 +44,47 @@ public abstract class AbstractTest {
         this.context = context;
     }
 
+    private boolean statisticsEnabled;
+
     @Before
     public void setup() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        context.getBean(ShipSearchIndex.class).rebuild();
+        context.getBean(ShipReadReplica.class).rebuild();
+        // test.sql меняет таблицу в обход Hibernate, поэтому кэш второго уровня сбрасывается вручную
+        context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictAllRegions();
+        context.getBean(ShipListCache.class).invalidateAll();
+        statisticsEnabled = statistics().isStatisticsEnabled();
+    }
+
+    @After
+    public void restoreStatistics() {
+        statistics().setStatisticsEnabled(statisticsEnabled);
+    }
+
+    /**
+     * Выполняет запрос и, если контроллер обработал его асинхронно, дожидается результата
+     * и выполняет повторную диспетчеризацию, как сервлет-контейнер
+     */
+    ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        if (!result.getRequest().isAsyncStarted()) return actions;
+
+        result.getAsyncResult(10000);
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    Statistics startStatistics() {
+        Statistics statistics = statistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
+
+    private Statistics statistics() {
+        return context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
     }
 }
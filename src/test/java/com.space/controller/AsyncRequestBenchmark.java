@@ -0,0 +1,49 @@
+package com.space.controller;
+
+import com.space.config.BenchmarkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Пропускная способность GET /rest/ships через пул асинхронной обработки запросов в H2 профиля dev
+ * Каждый поток JMH - отдельный клиент, который листает страницы списка. Количество клиентов задается
+ * параметром -t, масштабирование видно при сравнении прогонов с 1, 4, 16 и 64 потоками.
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=AsyncRequestBenchmark -Dbenchmark.args="-t 16"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncRequestBenchmark {
+
+    private BenchmarkContext context;
+    private int page;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        this.context = context;
+    }
+
+    @Benchmark
+    public MvcResult getShips() throws Exception {
+        page = (page + 1) % 8;
+        return context.perform(get("/rest/ships?pageSize=5&pageNumber=" + page));
+    }
+}
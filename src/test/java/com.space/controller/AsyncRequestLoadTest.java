@@ -0,0 +1,108 @@
+package com.space.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AsyncRequestLoadTest extends AbstractTest {
+
+    private static final int CONTAINER_THREADS = 2;
+
+    private ThreadPoolTaskExecutor requestExecutor;
+
+    @Before
+    public void setupExecutor() {
+        requestExecutor = context.getBean("requestExecutor", ThreadPoolTaskExecutor.class);
+    }
+
+    //test1
+    @Test
+    public void fullQueueRejectsWithServiceUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            occupyRequestExecutor(release, true);
+
+            perform(get("/rest/ships?pageSize=5"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        } finally {
+            release.countDown();
+        }
+
+        // после разгрузки очереди запросы снова принимаются
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!requestExecutor.getThreadPoolExecutor().getQueue().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        perform(get("/rest/ships?pageSize=5")).andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void containerThreadsAreReleasedWhileRequestsWait() throws Exception {
+        int requests = 30;
+        CountDownLatch release = new CountDownLatch(1);
+        List<MvcResult> started = new ArrayList<>();
+        ExecutorService container = Executors.newFixedThreadPool(CONTAINER_THREADS);
+        try {
+            occupyRequestExecutor(release, false);
+
+            // все потоки пула заняты, но 2 потока контейнера принимают 30 запросов, не дожидаясь БД
+            List<Future<MvcResult>> accepted = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                accepted.add(container.submit(() -> mockMvc.perform(get("/rest/ships/count")).andReturn()));
+            }
+            for (Future<MvcResult> future : accepted) {
+                MvcResult result = future.get(5, TimeUnit.SECONDS);
+                assertTrue("Запрос должен обрабатываться асинхронно.", result.getRequest().isAsyncStarted());
+                started.add(result);
+            }
+        } finally {
+            release.countDown();
+            container.shutdown();
+        }
+
+        for (MvcResult result : started) {
+            result.getAsyncResult(10000);
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        }
+    }
+
+    /**
+     * Занимает все потоки пула обработки задачами, ожидающими release, и, если нужно, заполняет его очередь
+     */
+    private void occupyRequestExecutor(CountDownLatch release, boolean fillQueue) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(requestExecutor.getMaxPoolSize());
+        Runnable blocker = () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        for (int i = 0; i < requestExecutor.getMaxPoolSize(); i++) requestExecutor.execute(blocker);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        if (fillQueue) {
+            int free = requestExecutor.getThreadPoolExecutor().getQueue().remainingCapacity();
+            for (int i = 0; i < free; i++) requestExecutor.execute(blocker);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.search.ShipSearchIndex;
+import com.space.utility.CalcRatingShipUtility;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkShipsTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void deleteShipsWithoutFiltersTest() throws Exception {
+        perform(delete("/rest/ships"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void deleteShipsByFilterTest() throws Exception {
+        int expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                testsHelper.getShipInfosByMaxSpeed(0.5, testsHelper.getAllShips())).size();
+
+        Statistics statistics = startStatistics();
+        String deleted = perform(delete("/rest/ships?shipType=MILITARY&maxSpeed=0.5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Возвращается не правильное количество удаленных кораблей.", String.valueOf(expected), deleted);
+        assertEquals("При удалении по фильтру корабли не должны загружаться.", 0L, statistics.getEntityLoadCount());
+        assertEquals("Корабли не должны удаляться по одному.", 0L, statistics.getEntityDeleteCount());
+        assertEquals("Удаление по фильтру должно выполняться одним запросом DELETE.", 1L, statistics.getPrepareStatementCount());
+
+        assertEquals("Удаленные корабли не должны находиться фильтром.", "0", count("/rest/ships/count?shipType=MILITARY&maxSpeed=0.5"));
+        assertEquals("Остальные корабли не должны удаляться.", String.valueOf(testsHelper.getAllShips().size() - expected), count("/rest/ships/count"));
+    }
+
+    //test3
+    @Test
+    public void updateShipsByFilterRecalculatesRatingTest() throws Exception {
+        List<ShipInfoTest> mars = testsHelper.getShipInfosByPlanet("Mars", testsHelper.getAllShips());
+
+        String updated = perform(post("/rest/ships/bulk-update?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\": true, \"speed\": 0.33}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Возвращается не правильное количество обновленных кораблей.", String.valueOf(mars.size()), updated);
+
+        List<ShipInfoTest> actual = mapper.readValue(perform(get("/rest/ships?planet=Mars&pageSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+
+        assertEquals("Обновленные корабли должны находиться фильтром.", mars.size(), actual.size());
+        for (ShipInfoTest ship : actual) {
+            assertEquals("Признак использования должен обновляться.", true, ship.isUsed);
+            assertEquals("Скорость должна обновляться.", 0.33, ship.speed);
+            assertEquals("Рейтинг должен пересчитываться.", expectedRating(ship), ship.rating);
+        }
+    }
+
+    //test4
+    @Test
+    public void updateShipsNameIsSearchableTest() throws Exception {
+        int expected = testsHelper.getShipInfosByShipType(ShipType.TRANSPORT, testsHelper.getAllShips()).size();
+
+        perform(post("/rest/ships/bulk-update?shipType=TRANSPORT")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Retired hauler\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Новое наименование должно находиться фильтром name.", String.valueOf(expected), count("/rest/ships/count?name=hauler"));
+    }
+
+    //test5
+    @Test
+    public void updateShipsInvalidBodyTest() throws Exception {
+        perform(post("/rest/ships/bulk-update?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        perform(post("/rest/ships/bulk-update?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.TOO_BIG_CREW_SIZE_JSON))
+                .andExpect(status().isBadRequest());
+
+        perform(post("/rest/ships/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\": true}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void updateShipsSpeedKeepsEachProdYearTest() throws Exception {
+        perform(post("/rest/ships/bulk-update?shipType=MILITARY")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 0.27}"))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(perform(get("/rest/ships?shipType=MILITARY&pageSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+
+        for (ShipInfoTest ship : actual) {
+            assertEquals("Рейтинг должен совпадать с расчетом CalcRatingShipUtility.", expectedRating(ship), ship.rating);
+        }
+    }
+
+    //test7
+    @Test
+    public void deleteShipsKeepsEnabledIndexInSyncTest() throws Exception {
+        ShipSearchIndex index = context.getBean(ShipSearchIndex.class);
+        index.setEnabled(true);
+        try {
+            Statistics statistics = startStatistics();
+            perform(delete("/rest/ships?planet=Mars"))
+                    .andExpect(status().isOk());
+
+            assertEquals("При включенном индексе удаление должно выбирать идентификаторы с блокировкой и удалять по ним.",
+                    2L, statistics.getPrepareStatementCount());
+            assertEquals("Удаленные корабли не должны находиться через индекс.", "0", count("/rest/ships/count?planet=Mars"));
+        } finally {
+            index.setEnabled(false);
+        }
+    }
+
+    private String count(String url) throws Exception {
+        return perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static Double expectedRating(ShipInfoTest info) {
+        Ship ship = new Ship();
+        ship.setUsed(info.isUsed);
+        ship.setSpeed(info.speed);
+        ship.setProdDate(new Date(info.prodDate));
+        return CalcRatingShipUtility.calcRatingShip(ship);
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CreateShipsBatchTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createShipsNotArrayTest() throws Exception {
+        perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void createShipsReportsErrorsPerShipTest() throws Exception {
+        String content = "[" + TestsHelper.NORMAL_JSON + ","
+                + TestsHelper.NO_SPEED_JSON + ","
+                + "{\"name\": \"Second\", \"planet\": \"Mars\", \"shipType\": \"MERCHANT\", \"prodDate\": 32998274577071, \"speed\": 0.5, \"crewSize\": 100},"
+                + "42,"
+                + TestsHelper.EMPTY_NAME_JSON + "]";
+
+        JsonNode result = mapper.readTree(perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(content))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertEquals("Должны создаваться только корректные корабли.", 2, result.get("created").asInt());
+        assertEquals("Должны возвращаться ошибки по каждому некорректному кораблю.", 3, result.get("failed").asInt());
+        assertEquals("Ошибки должны содержать порядковый номер корабля в запросе.", 1, result.get("errors").get(0).get("index").asInt());
+        assertEquals("Ошибки должны содержать порядковый номер корабля в запросе.", 3, result.get("errors").get(1).get("index").asInt());
+        assertEquals("Ошибки должны содержать порядковый номер корабля в запросе.", 4, result.get("errors").get(2).get("index").asInt());
+
+        long id = result.get("ids").get(1).asLong();
+        ShipInfoTest actual = mapper.readValue(perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), ShipInfoTest.class);
+        ShipInfoTest expected = new ShipInfoTest(id, "Second", "Mars", ShipType.MERCHANT, 32998274577071L, false, 0.5, 100, 8.0);
+        assertEquals("Созданный пакетом корабль должен сохраняться с рассчитанным рейтингом.", expected, actual);
+
+        String count = perform(get("/rest/ships/count?name=Second")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Созданный пакетом корабль должен находиться фильтром.", "1", count);
+    }
+
+    //test3
+    @Test
+    public void createShipsNdjsonTest() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            content.append(String.format("{\"name\": \"Batch %d\", \"planet\": \"Earth\", \"shipType\": \"TRANSPORT\", "
+                    + "\"prodDate\": 32998274577071, \"isUsed\": true, \"speed\": 0.8, \"crewSize\": 14}\n", i));
+        }
+        content.append("{not a json\n");
+
+        JsonNode result = mapper.readTree(perform(post("/rest/ships/batch")
+                .contentType(ShipController.APPLICATION_NDJSON_VALUE)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(content.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertEquals("Должны создаваться все корректные корабли.", 1200, result.get("created").asInt());
+        assertEquals("Некорректная строка должна попадать в ошибки.", 1200, result.get("errors").get(0).get("index").asInt());
+
+        String count = perform(get("/rest/ships/count?name=Batch")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Все созданные пакетом корабли должны сохраняться.", "1200", count);
+    }
+}
@@ -1,8 +1,10 @@
 package com.space.controller;
 
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 
+import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -12,7 +14,7 @@ public class DeleteShipTest extends AbstractTest {
     //test1
     @Test
     public void deleteShipByIdZeroTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/0")
+        perform(delete("/rest/ships/0")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -20,7 +22,7 @@ public class DeleteShipTest extends AbstractTest {
     //test2
     @Test
     public void deleteShipByIdNotNumberTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/test")
+        perform(delete("/rest/ships/test")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -28,7 +30,7 @@ public class DeleteShipTest extends AbstractTest {
     //test3
     @Test
     public void deleteShipByIdNotExistTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/426")
+        perform(delete("/rest/ships/426")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
@@ -36,12 +38,25 @@ public class DeleteShipTest extends AbstractTest {
     //test4
     @Test
     public void deleteShipByIdTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/1")
+        perform(delete("/rest/ships/1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
-        mockMvc.perform(get("/rest/ships/1")
+        perform(get("/rest/ships/1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    //test5
+    @Test
+    public void deleteShipLoadsShipOnceTest() throws Exception {
+        Statistics statistics = startStatistics();
+
+        perform(delete("/rest/ships/2")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        assertEquals("При запросе DELETE /rest/ships/{id} корабль должен загружаться один раз.", 1L, statistics.getEntityLoadCount());
+        assertEquals("Запрос DELETE /rest/ships/{id} должен выполняться одним SELECT и одним DELETE.", 2L, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,98 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.Specification.ShipFilter;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import com.space.service.ShipService;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportShipsTest extends AbstractTest {
+
+    private static final int LARGE_FLEET_SIZE = 5_000;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportNdjsonWithFiltersTest() throws Exception {
+        String contentAsString = perform(get("/rest/ships/export?shipType=MILITARY&order=SPEED"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ShipController.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = new ArrayList<>();
+        for (String line : contentAsString.split("\n")) {
+            actual.add(mapper.readValue(line, ShipInfoTest.class));
+        }
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips());
+        expected.sort((a, b) -> a.speed.equals(b.speed) ? a.id.compareTo(b.id) : a.speed.compareTo(b.speed));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/export с параметрами shipType и order.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void exportCsvTest() throws Exception {
+        String contentAsString = perform(get("/rest/ships/export?format=CSV&name=Orion"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.parseMediaType("text/csv")))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = contentAsString.split("\n");
+        assertEquals("Выгрузка CSV должна начинаться с заголовка.", "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating", lines[0]);
+        assertEquals("Возвращается не правильное количество строк при запросе GET /rest/ships/export в формате CSV.", 2, lines.length);
+        assertTrue(lines[1].startsWith("1,Orion III,Mars,MERCHANT,"));
+    }
+
+    //test3
+    @Test
+    public void exportDoesNotKeepShipsInContextTest() throws Exception {
+        try (Connection connection = context.getBean(DataSource.class).getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                    + "SELECT CONCAT('Fleet ', X), 'Earth', 'TRANSPORT', DATE '3000-01-01', FALSE, 0.5, 100, 2.0 "
+                    + "FROM SYSTEM_RANGE(1, " + LARGE_FLEET_SIZE + ")");
+        }
+
+        int expected = LARGE_FLEET_SIZE + testsHelper.getAllShips().size();
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        AtomicInteger count = new AtomicInteger();
+        AtomicInteger maxManagedEntities = new AtomicInteger();
+
+        context.getBean(ShipService.class).exportShips(
+                new ShipFilter(null, null, null, null, null, null, null, null, null, null, null, null),
+                Sort.by("id"),
+                ship -> {
+                    int managed = EntityManagerFactoryUtils.getTransactionalEntityManager(emf)
+                            .unwrap(SessionImplementor.class)
+                            .getPersistenceContext()
+                            .getNumberOfManagedEntities();
+                    maxManagedEntities.accumulateAndGet(managed, Math::max);
+                    count.incrementAndGet();
+                });
+
+        assertEquals("Выгрузка должна вернуть все корабли.", expected, count.get());
+        assertEquals("Выгруженные корабли не должны накапливаться в контексте Hibernate.", 1, maxManagedEntities.get());
+    }
+}
@@ -5,15 +5,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.space.controller.utils.ShipInfoTest;
 import com.space.controller.utils.TestsHelper;
 import com.space.model.ShipType;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class GetAllTest extends AbstractTest {
@@ -26,7 +35,7 @@ public class GetAllTest extends AbstractTest {
     //test1
     @Test
     public void getAllWithoutFiltersReturnAllShips() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships")
+        ResultActions resultActions = perform(get("/rest/ships")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -42,7 +51,7 @@ public class GetAllTest extends AbstractTest {
     //test2
     @Test
     public void getAllWithFiltersNamePageNumber() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?name=ra&pageNumber=1")
+        ResultActions resultActions = perform(get("/rest/ships?name=ra&pageNumber=1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -59,7 +68,7 @@ public class GetAllTest extends AbstractTest {
     //test3
     @Test
     public void getAllWithFiltersPlanetPageSize() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?planet=ur&pageSize=4")
+        ResultActions resultActions = perform(get("/rest/ships?planet=ur&pageSize=4")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -78,7 +87,7 @@ public class GetAllTest extends AbstractTest {
     public void getAllWithFiltersShipTypeAfterBefore() throws Exception {
         //after 00:00 01.01.3000
         //before 00:00 01.01.3011
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?shipType=MILITARY&after=32503672800000&before=32850741600000")
+        ResultActions resultActions = perform(get("/rest/ships?shipType=MILITARY&after=32503672800000&before=32850741600000")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -99,7 +108,7 @@ public class GetAllTest extends AbstractTest {
     //test5
     @Test
     public void getAllWithFiltersShipTypeMinSpeedMaxSpeed() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?shipType=TRANSPORT&minSpeed=0.3&maxSpeed=0.6")
+        ResultActions resultActions = perform(get("/rest/ships?shipType=TRANSPORT&minSpeed=0.3&maxSpeed=0.6")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -119,7 +128,7 @@ public class GetAllTest extends AbstractTest {
     //test6
     @Test
     public void getAllWithFiltersShipTypeMinCrewSizeMaxCrewSize() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?shipType=MERCHANT&minCrewSize=10&maxCrewSize=1000")
+        ResultActions resultActions = perform(get("/rest/ships?shipType=MERCHANT&minCrewSize=10&maxCrewSize=1000")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -139,7 +148,7 @@ public class GetAllTest extends AbstractTest {
     //test7
     @Test
     public void getAllWithFiltersIsUsedMinMaxRating() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?isUsed=true&minRating=2&maxRating=4")
+        ResultActions resultActions = perform(get("/rest/ships?isUsed=true&minRating=2&maxRating=4")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -159,7 +168,7 @@ public class GetAllTest extends AbstractTest {
     //test8
     @Test
     public void getAllWithFiltersIsUsedMaxSpeedMaxRating() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?isUsed=false&maxSpeed=0.6&maxRating=7")
+        ResultActions resultActions = perform(get("/rest/ships?isUsed=false&maxSpeed=0.6&maxRating=7")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -179,7 +188,7 @@ public class GetAllTest extends AbstractTest {
     //test9
     @Test
     public void getAllWithFiltersNameOrderSpeed() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?name=ca&order=SPEED")
+        ResultActions resultActions = perform(get("/rest/ships?name=ca&order=SPEED")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -200,7 +209,7 @@ public class GetAllTest extends AbstractTest {
     public void getAllWithFiltersAfterBeforeMinCrewMaxCrew() throws Exception {
         //after 00:00 01.01.2996
         //before 00:00 01.01.3009
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships?after=32377442400000&before=32787669600000&minCrewSize=20&maxCrewSize=1500&pageNumber=1")
+        ResultActions resultActions = perform(get("/rest/ships?after=32377442400000&before=32787669600000&minCrewSize=20&maxCrewSize=1500&pageNumber=1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -217,4 +226,177 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами after, before, minCrewSize и maxCrewSize.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test11
+    @Test
+    public void getAllWithCursorOrderDateReturnsAllPages() throws Exception {
+        List<ShipInfoTest> actual = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            MvcResult result = perform(get("/rest/ships?isUsed=false&order=DATE&pageSize=4&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference));
+            cursor = result.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+            pages++;
+        }
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByIsUsed(false, testsHelper.getAllShips()).stream()
+                .sorted(Comparator.comparing((ShipInfoTest ship) -> ship.prodDate).thenComparing(ship -> ship.id))
+                .collect(Collectors.toList());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами order и cursor.", expected, actual);
+        assertEquals("Возвращается не правильное количество страниц при запросе GET /rest/ships с параметром cursor.", (expected.size() + 3) / 4, pages);
+    }
+
+    //test12
+    @Test
+    public void getAllWithCursorOrderSpeedReturnsNextPage() throws Exception {
+        MvcResult first = perform(get("/rest/ships?order=SPEED&cursor=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cursor = first.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+
+        MvcResult second = perform(get("/rest/ships?order=SPEED&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<ShipInfoTest> actual = mapper.readValue(second.getResponse().getContentAsString(), typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 3,
+                testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                        testsHelper.getAllShips()));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами order и cursor.", expected, actual);
+    }
+
+    //test13
+    @Test
+    public void getAllWithInvalidCursor() throws Exception {
+        perform(get("/rest/ships?order=RATING&cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test14
+    @Test
+    public void getAllExecutesSingleStatementPerPage() throws Exception {
+        Statistics statistics = startStatistics();
+
+        ResultActions resultActions = perform(get("/rest/ships?planet=a&pageNumber=1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(), typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 3,
+                testsHelper.getShipInfosByPlanet("a", testsHelper.getAllShips()));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами planet и pageNumber.", expected, actual);
+        assertEquals("Запрос GET /rest/ships должен выполняться одним SQL запросом.", 1L, statistics.getPrepareStatementCount());
+    }
+
+    //test15
+    @Test
+    public void getAllWithFiltersNamePlanetFindsCreatedShip() throws Exception {
+        perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        ResultActions resultActions = perform(get("/rest/ships?name=345678&planet=arth")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(resultActions.andReturn().getResponse().getContentAsString(), typeReference);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами name и planet после создания корабля.", 1, actual.size());
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами name и planet после создания корабля.", "123456789", actual.get(0).name);
+    }
+
+    //test16
+    @Test
+    public void getAllWithFiltersNameAfterUpdateShip() throws Exception {
+        perform(post("/rest/ships/13")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Firefly\"}"))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> oldName = mapper.readValue(perform(get("/rest/ships?name=Serenity")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+        List<ShipInfoTest> newName = mapper.readValue(perform(get("/rest/ships?name=refl")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships по старому наименованию корабля.", 0, oldName.size());
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships по новому наименованию корабля.", 1, newName.size());
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships по новому наименованию корабля.", 13L, (long) newName.get(0).id);
+    }
+
+    //test17
+    @Test
+    public void getAllRepeatedPageIsServedFromListCache() throws Exception {
+        String url = "/rest/ships?shipType=TRANSPORT&order=SPEED&pageSize=5";
+        String first = perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        Statistics statistics = startStatistics();
+        String second = perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Повторный запрос GET /rest/ships должен возвращать тот же результат.", first, second);
+        assertEquals("Повторный запрос GET /rest/ships должен обслуживаться из кэша списков.", 0L, statistics.getPrepareStatementCount());
+
+        long id = mapper.readValue(first, typeReference).get(0).id;
+        perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Firefly\"}"))
+                .andExpect(status().isOk());
+
+        List<ShipInfoTest> actual = mapper.readValue(perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+        assertEquals("После обновления корабля кэш списков должен сбрасываться.", "Firefly", actual.get(0).name);
+    }
+
+    //test18
+    @Test
+    public void getAllWithCursorPagesOverNullSortValues() throws Exception {
+        new JdbcTemplate(context.getBean(DataSource.class)).update(
+                "INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                        + "VALUES ('Ghost', 'Mars', 'TRANSPORT', NULL, FALSE, NULL, 10, NULL), "
+                        + "('Phantom', 'Mars', 'TRANSPORT', NULL, FALSE, NULL, 10, NULL)");
+        int expected = testsHelper.getShipInfosByPlanet("Mars", testsHelper.getAllShips()).size() + 2;
+
+        for (String order : new String[]{"SPEED", "DATE", "RATING"}) {
+            Set<Long> ids = new HashSet<>();
+            String cursor = "";
+            while (cursor != null) {
+                MvcResult result = perform(get("/rest/ships?planet=Mars&order=" + order + "&pageSize=2&cursor=" + cursor)
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk())
+                        .andReturn();
+
+                for (ShipInfoTest ship : mapper.readValue(result.getResponse().getContentAsString(), typeReference)) {
+                    ids.add(ship.id);
+                }
+                cursor = result.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+            }
+
+            assertEquals("Курсор должен проходить корабли с пустым полем сортировки " + order + ".", expected, ids.size());
+        }
+    }
+}
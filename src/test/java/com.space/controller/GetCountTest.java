@@ -2,13 +2,18 @@ package com.space.controller;
 
 import com.space.controller.utils.TestsHelper;
 import com.space.model.ShipType;
+import com.space.service.ShipListCache;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class GetCountTest extends AbstractTest {
@@ -18,7 +23,7 @@ public class GetCountTest extends AbstractTest {
     //test1
     @Test
     public void getCountWithoutFiltersReturnAllShips() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count")
+        ResultActions resultActions = this.perform(get("/rest/ships/count")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -33,7 +38,7 @@ public class GetCountTest extends AbstractTest {
     //test2
     @Test
     public void getCountWithFiltersMinRatingMinCrewSizeMinSpeed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?minRating=0.5&minCrewSize=100&minSpeed=0.3")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?minRating=0.5&minCrewSize=100&minSpeed=0.3")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -52,7 +57,7 @@ public class GetCountTest extends AbstractTest {
     @Test
     public void getCountWithFiltersNameAfterMaxRating() throws Exception {
         //after 00:00 01/01/2900
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?name=nt&after=32188140000000&maxRating=3")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?name=nt&after=32188140000000&maxRating=3")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -70,7 +75,7 @@ public class GetCountTest extends AbstractTest {
     //test4
     @Test
     public void getCountWithFiltersShipTypeIsUsed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=MERCHANT&isUsed=true")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?shipType=MERCHANT&isUsed=true")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -87,7 +92,7 @@ public class GetCountTest extends AbstractTest {
     //test5
     @Test
     public void getCountWithFiltersShipTypeMaxCrewSize() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=MILITARY&maxCrewSize=400")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?shipType=MILITARY&maxCrewSize=400")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -104,7 +109,7 @@ public class GetCountTest extends AbstractTest {
     //test6
     @Test
     public void getCountWithFiltersPlanet() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?planet=us")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?planet=us")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -120,7 +125,7 @@ public class GetCountTest extends AbstractTest {
     @Test
     public void getCountWithFiltersShipTypeBeforeMaxSpeed() throws Exception {
         //before 00:00 01/01/3015
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=TRANSPORT&before=32976972000000&maxSpeed=0.7")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?shipType=TRANSPORT&before=32976972000000&maxSpeed=0.7")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -138,7 +143,7 @@ public class GetCountTest extends AbstractTest {
     //test8
     @Test
     public void getCountWithFiltersIsUsedMinMaxSpeed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?isUsed=false&minSpeed=0.3&maxSpeed=0.6")
+        ResultActions resultActions = this.perform(get("/rest/ships/count?isUsed=false&minSpeed=0.3&maxSpeed=0.6")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -152,4 +157,75 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/ships/count с параметрами isUsed, minSpeed и maxSpeed.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test9
+    @Test
+    public void getCountDoesNotLoadShipEntities() throws Exception {
+        Statistics statistics = startStatistics();
+
+        ResultActions resultActions = this.perform(get("/rest/ships/count?shipType=MERCHANT&minSpeed=0.3")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
+        int actual = Integer.parseInt(contentAsString);
+        int expected = testsHelper.getShipInfosByShipType(ShipType.MERCHANT,
+                testsHelper.getShipInfosByMinSpeed(0.3,
+                        testsHelper.getAllShips())).size();
+
+        assertSame("Возвращается не правильный результат при запросе GET /rest/ships/count с параметрами shipType и minSpeed.", expected, actual);
+        assertEquals("При запросе GET /rest/ships/count не должны загружаться корабли.", 0, statistics.getEntityLoadCount());
+        assertEquals("Запрос GET /rest/ships/count должен выполняться одним SQL запросом.", 1, statistics.getPrepareStatementCount());
+    }
+
+    //test10
+    @Test
+    public void getCountIsCachedUntilShipIsCreated() throws Exception {
+        String url = "/rest/ships/count?shipType=MERCHANT";
+        int expected = testsHelper.getShipInfosByShipType(ShipType.MERCHANT, testsHelper.getAllShips()).size();
+
+        assertEquals(expected, count(url));
+        context.getBean(ShipListCache.class).invalidateAll();
+
+        Statistics statistics = startStatistics();
+        assertEquals(expected, count(url));
+        assertEquals("Повторный запрос GET /rest/ships/count должен обслуживаться из кэша запросов.", 0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        this.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON.replace("MILITARY", "MERCHANT")))
+                .andExpect(status().isOk());
+
+        assertEquals("После создания корабля кэш запросов должен сбрасываться.", expected + 1, count(url));
+    }
+
+    //test11
+    @Test
+    public void getCountIsServedFromListCache() throws Exception {
+        ShipListCache shipListCache = context.getBean(ShipListCache.class);
+        int expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()).size();
+
+        assertEquals(expected, count("/rest/ships/count?shipType=MILITARY"));
+
+        Statistics statistics = startStatistics();
+        long hitCount = shipListCache.getHitCount();
+        assertEquals(expected, count("/rest/ships/count?shipType=MILITARY&name="));
+        assertEquals("Повторный запрос GET /rest/ships/count должен обслуживаться из кэша списков.", hitCount + 1, shipListCache.getHitCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertEquals(0, statistics.getQueryCacheHitCount());
+
+        this.perform(delete("/rest/ships/" + testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()).get(0).id))
+                .andExpect(status().isOk());
+
+        assertEquals("После удаления корабля кэш списков должен сбрасываться.", expected - 1, count("/rest/ships/count?shipType=MILITARY"));
+    }
+
+    private int count(String url) throws Exception {
+        String contentAsString = this.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(contentAsString);
+    }
+}
@@ -3,12 +3,16 @@ package com.space.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.space.controller.utils.ShipInfoTest;
 import com.space.controller.utils.TestsHelper;
+import com.space.metrics.SecondLevelCacheMetrics;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.ResultActions;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class GetShipTest extends AbstractTest {
@@ -16,7 +20,7 @@ public class GetShipTest extends AbstractTest {
     //test1
     @Test
     public void getShipByIdEqualZeroTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/0")
+        perform(get("/rest/ships/0")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -24,7 +28,7 @@ public class GetShipTest extends AbstractTest {
     //test2
     @Test
     public void getShipByIdNotNumberTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/test")
+        perform(get("/rest/ships/test")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -32,7 +36,7 @@ public class GetShipTest extends AbstractTest {
     //test3
     @Test
     public void getShipByIdNotExistTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/410")
+        perform(get("/rest/ships/410")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
@@ -42,7 +46,7 @@ public class GetShipTest extends AbstractTest {
     public void getShipByIdTest() throws Exception {
         ShipInfoTest expected = new TestsHelper().getShipInfosById(14);
 
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships/14")
+        ResultActions resultActions = perform(get("/rest/ships/14")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -51,4 +55,40 @@ public class GetShipTest extends AbstractTest {
         ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
         assertEquals("Вернулся неправильный объект при запросе GET /rest/ships/{id}", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test5
+    @Test
+    public void getShipByIdUsesSecondLevelCache() throws Exception {
+        perform(get("/rest/ships/14")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        Statistics statistics = startStatistics();
+        perform(get("/rest/ships/14")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        assertEquals("Повторный запрос GET /rest/ships/{id} должен обслуживаться из кэша.", 0L, statistics.getPrepareStatementCount());
+        assertEquals("Повторный запрос GET /rest/ships/{id} должен попадать в кэш кораблей.", 1L,
+                context.getBean(SecondLevelCacheMetrics.class).getShipHitCount());
+
+        perform(post("/rest/ships/14")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Cached\"}"))
+                .andExpect(status().isOk());
+
+        ResultActions resultActions = perform(get("/rest/ships/14")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
+        ShipInfoTest actual = new ObjectMapper().readValue(contentAsString, ShipInfoTest.class);
+        assertEquals("После обновления корабля GET /rest/ships/{id} должен возвращать новые значения.", "Cached", actual.name);
+
+        perform(delete("/rest/ships/14"))
+                .andExpect(status().isOk());
+        perform(get("/rest/ships/14")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,91 @@
+package com.space.controller;
+
+import com.space.metrics.RequestMetricsInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void requestTimerTaggedByOrderAndFilterShapeTest() throws Exception {
+        perform(get("/rest/ships?shipType=MILITARY&isUsed=false&minSpeed=0.1&order=SPEED&pageSize=10"))
+                .andExpect(status().isOk());
+
+        Timer timer = registry().find(RequestMetricsInterceptor.REQUESTS_METRIC)
+                .tags("method", "GET", "uri", "/rest/ships", "status", "200",
+                        "order", "SPEED", "filter", "shipType,isUsed,minSpeed")
+                .timer();
+        assertNotNull("Время запроса должно записываться с сортировкой и набором параметров фильтра.", timer);
+        assertTrue("Время запроса должно быть больше нуля.", timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    //test2
+    @Test
+    public void sqlStatementsCountedPerRequestTest() throws Exception {
+        perform(get("/rest/ships/7")).andExpect(status().isOk());
+        perform(get("/rest/ships/7")).andExpect(status().isOk());
+
+        DistributionSummary summary = registry().find(RequestMetricsInterceptor.SQL_METRIC)
+                .tags("method", "GET", "uri", "/rest/ships/{id}")
+                .summary();
+        assertNotNull("Количество SQL запросов должно записываться для каждого запроса.", summary);
+        assertEquals("Первый запрос загружает корабль из БД, второй из кэша второго уровня.",
+                1.0, summary.max());
+    }
+
+    //test3
+    @Test
+    public void scrapeEndpointTest() throws Exception {
+        perform(get("/rest/ships/count")).andExpect(status().isOk());
+
+        String body = perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("В ответе должны быть метрики запросов.", body.contains("http_server_requests_seconds_count{application=\"cosmoport\","));
+        assertTrue("В ответе должны быть процентили времени запросов.", body.contains("quantile=\"0.99\""));
+        assertTrue("В ответе должны быть метрики памяти JVM.", body.contains("jvm_memory_used_bytes"));
+        assertTrue("В ответе должны быть метрики сборщика мусора.", body.contains("jvm_gc_"));
+        assertTrue("В ответе должны быть метрики кэшей.", body.contains("cache_gets_total{application=\"cosmoport\",cache=\"list\""));
+    }
+
+    //test4
+    @Test
+    public void sqlProfilerTaggedByHandlerAndFilterTest() throws Exception {
+        perform(delete("/admin/sql")).andExpect(status().isOk());
+        perform(get("/rest/ships?shipType=MILITARY&isUsed=true&pageSize=5")).andExpect(status().isOk());
+
+        String body = perform(get("/admin/sql/statements"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode statements = new ObjectMapper().readTree(body);
+
+        JsonNode select = null;
+        for (JsonNode statement : statements) {
+            if ("ShipController.getAllShips".equals(statement.get("handler").asText())) select = statement;
+        }
+        assertNotNull("SQL запрос должен быть связан с методом контроллера.", select);
+        assertEquals("SQL запрос должен быть связан с набором параметров фильтра.", "shipType,isUsed", select.get("filter").asText());
+        assertTrue("Должен записываться текст SQL запроса.", select.get("sql").asText().startsWith("select"));
+        assertTrue("Должны записываться типы параметров SQL запроса.", select.get("binds").asText().contains("String"));
+        assertTrue("Должно записываться количество прочитанных строк.", select.get("rows").asLong() > 0);
+    }
+
+    private MeterRegistry registry() {
+        return context.getBean(MeterRegistry.class);
+    }
+}
@@ -0,0 +1,144 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.service.RatingRecalculationJob;
+import com.space.service.ShipListCache;
+import com.space.utility.CalcRatingShipUtility;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Date;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RatingRecalculationTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void breakRatings() {
+        jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("DELETE FROM rating_recalculation");
+        jdbcTemplate.update("UPDATE ship SET rating = 0");
+        context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictAllRegions();
+        context.getBean(ShipListCache.class).invalidateAll();
+        // несколько порций на 40 кораблях, состояние предыдущего теста в памяти задачи не учитывается
+        RatingRecalculationJob job = context.getBean(RatingRecalculationJob.class);
+        ReflectionTestUtils.setField(job, "chunkSize", 7);
+        ReflectionTestUtils.setField(job, "state", null);
+    }
+
+    //test1
+    @Test
+    public void recalculateAllRatingsTest() throws Exception {
+        perform(get("/rest/ships/rating/recalculation"))
+                .andExpect(status().isNotFound());
+
+        perform(post("/rest/ships/rating/recalculation"))
+                .andExpect(status().isAccepted());
+        JsonNode progress = awaitProgress();
+
+        assertEquals("Пересчет рейтинга должен завершиться.", "FINISHED", progress.get("status").asText());
+        assertEquals("Пересчет рейтинга должен обработать все корабли.", 40L, progress.get("processed").asLong());
+        assertEquals("Пересчет рейтинга должен изменить все неверные рейтинги.", 40L, progress.get("updated").asLong());
+        assertEquals("Количество кораблей должно определяться при запуске.", 40L, progress.get("total").asLong());
+
+        for (ShipInfoTest expected : testsHelper.getAllShips()) {
+            assertEquals("Рейтинг корабля " + expected.id + " пересчитан не правильно.", calcRating(expected), getRating(expected.id));
+        }
+    }
+
+    //test2
+    @Test
+    public void resumeRecalculationFromCheckpointTest() throws Exception {
+        jdbcTemplate.update("INSERT INTO rating_recalculation (id, status, last_id, total, processed, updated, started_at) "
+                + "VALUES ('rating', 'RUNNING', 20, 40, 20, 20, CURRENT_TIMESTAMP)");
+
+        perform(post("/rest/ships/rating/recalculation"))
+                .andExpect(status().isAccepted());
+        JsonNode progress = awaitProgress();
+
+        assertEquals("Пересчет рейтинга должен завершиться.", "FINISHED", progress.get("status").asText());
+        assertEquals("Пересчет рейтинга должен продолжиться с сохраненной позиции.", 40L, progress.get("processed").asLong());
+
+        for (ShipInfoTest expected : testsHelper.getAllShips()) {
+            Double rating = expected.id <= 20 ? 0.0 : calcRating(expected);
+            assertEquals("Корабли до сохраненной позиции не должны пересчитываться повторно.", rating, getRating(expected.id));
+        }
+    }
+
+    //test3
+    @Test
+    public void restartFinishedRecalculationTest() throws Exception {
+        perform(post("/rest/ships/rating/recalculation"))
+                .andExpect(status().isAccepted());
+        awaitProgress();
+
+        perform(post("/rest/ships/rating/recalculation"))
+                .andExpect(status().isAccepted());
+        JsonNode progress = awaitProgress();
+
+        assertEquals("Завершенный пересчет должен начинаться заново.", 40L, progress.get("processed").asLong());
+        assertEquals("Верные рейтинги не должны перезаписываться.", 0L, progress.get("updated").asLong());
+    }
+
+    //test4
+    @Test
+    public void failedRecalculationKeepsErrorTest() throws Exception {
+        ReflectionTestUtils.setField(context.getBean(RatingRecalculationJob.class), "chunkSize", 0);
+
+        perform(post("/rest/ships/rating/recalculation"))
+                .andExpect(status().isAccepted());
+        JsonNode progress = awaitProgress();
+
+        assertEquals("Пересчет рейтинга должен остановиться с ошибкой.", "FAILED", progress.get("status").asText());
+        assertEquals("Причина остановки должна сохраняться в состоянии задачи без сообщения исключения.",
+                "Rating recalculation failed: IllegalArgumentException", progress.get("error").asText());
+        assertEquals("Причина остановки должна сохраняться в БД.", progress.get("error").asText(),
+                jdbcTemplate.queryForObject("SELECT error FROM rating_recalculation", String.class));
+    }
+
+    private JsonNode awaitProgress() throws Exception {
+        RatingRecalculationJob job = context.getBean(RatingRecalculationJob.class);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (job.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Пересчет рейтинга выполняется слишком долго.", !job.isRunning());
+
+        String json = perform(get("/rest/ships/rating/recalculation"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(json);
+    }
+
+    private static Double calcRating(ShipInfoTest info) {
+        Ship ship = new Ship();
+        ship.setProdDate(new Date(info.prodDate));
+        ship.setUsed(info.isUsed);
+        ship.setSpeed(info.speed);
+        return CalcRatingShipUtility.calcRatingShip(ship);
+    }
+
+    private Double getRating(Long id) throws Exception {
+        String json = perform(get("/rest/ships/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(json, ShipInfoTest.class).rating;
+    }
+}
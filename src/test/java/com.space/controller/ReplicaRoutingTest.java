@@ -0,0 +1,63 @@
+package com.space.controller;
+
+import com.space.config.ReplicaRoutingDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ReplicaRoutingTest extends AbstractTest {
+
+    private ReplicaRoutingDataSource routing;
+
+    @Before
+    public void findRouting() {
+        DataSource dataSource = context.getBean(DataSource.class);
+        while (!(dataSource instanceof ReplicaRoutingDataSource)) {
+            dataSource = ((DelegatingDataSource) dataSource).getTargetDataSource();
+        }
+        routing = (ReplicaRoutingDataSource) dataSource;
+    }
+
+    //test1
+    @Test
+    public void readsUseReplicasAndWritesUsePrimary() throws Exception {
+        long primary = routing.getPrimaryConnectionCount();
+        long replicas = replicaConnections();
+
+        // корабль загружается первым, пока его нет в кэше второго уровня
+        perform(get("/rest/ships/3")).andExpect(status().isOk());
+        perform(get("/rest/ships?planet=a&pageSize=5")).andExpect(status().isOk());
+        perform(get("/rest/ships/count?shipType=MILITARY")).andExpect(status().isOk());
+        perform(get("/rest/ships?order=SPEED&pageSize=5&cursor=")).andExpect(status().isOk());
+        perform(get("/rest/ships?pageSize=5&reader=JDBC")).andExpect(status().isOk());
+
+        assertEquals("Запросы чтения должны выполняться на репликах.", primary, routing.getPrimaryConnectionCount());
+        assertTrue("Запросы чтения должны выполняться на репликах.", replicaConnections() - replicas >= 5);
+
+        replicas = replicaConnections();
+        perform(post("/rest/ships/3")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Firefly\"}"))
+                .andExpect(status().isOk());
+
+        assertTrue("Изменение корабля должно выполняться на основной БД.", routing.getPrimaryConnectionCount() > primary);
+        assertEquals("Изменение корабля не должно обращаться к репликам.", replicas, replicaConnections());
+    }
+
+    private long replicaConnections() {
+        long connections = 0;
+        for (int i = 0; i < routing.getReplicaCount(); i++) {
+            connections += routing.getReplicaConnectionCount(i);
+        }
+        return connections;
+    }
+}
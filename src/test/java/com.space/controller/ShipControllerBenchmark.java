@@ -0,0 +1,70 @@
+package com.space.controller;
+
+import com.space.config.BenchmarkContext;
+import com.space.service.ShipListCache;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Запрос GET /rest/ships от DispatcherServlet до H2 профиля dev
+ * <p>
+ * cached - повторный запрос обслуживается кэшем списков и кэшем запросов Hibernate,
+ * uncached - перед каждым запросом оба кэша сбрасываются и выполняется SQL запрос.
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipControllerBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipControllerBenchmark {
+
+    @Param({"/rest/ships", "/rest/ships?shipType=MILITARY&isUsed=false&minSpeed=0.1&order=RATING&pageSize=10",
+            "/rest/ships?name=or&pageSize=10"})
+    private String url;
+
+    private BenchmarkContext context;
+    private ShipListCache shipListCache;
+    private SessionFactory sessionFactory;
+    private MockHttpServletRequestBuilder request;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        this.context = context;
+        shipListCache = context.getBean(ShipListCache.class);
+        sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        request = get(url);
+    }
+
+    @Benchmark
+    public MvcResult cached() throws Exception {
+        return context.perform(request);
+    }
+
+    @Benchmark
+    public MvcResult uncached() throws Exception {
+        shipListCache.invalidateAll();
+        sessionFactory.getCache().evictQueryRegions();
+        return context.perform(request);
+    }
+}
@@ -0,0 +1,69 @@
+package com.space.controller;
+
+import com.space.config.BenchmarkContext;
+import com.space.service.ShipListCache;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Запрос GET /rest/ships с параметром fields и без него, кэш списков и кэш запросов сбрасываются
+ * перед каждым запросом, поэтому каждый раз выполняется SQL запрос
+ * <p>
+ * Размер ответа для каждого набора полей проверяет ShipFieldsTest.
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipFieldsBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipFieldsBenchmark {
+
+    @Param({"", "id,name,rating", "id"})
+    private String fields;
+
+    @Param({"3", "40"})
+    private int pageSize;
+
+    private BenchmarkContext context;
+    private ShipListCache shipListCache;
+    private SessionFactory sessionFactory;
+    private MockHttpServletRequestBuilder request;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        this.context = context;
+        shipListCache = context.getBean(ShipListCache.class);
+        sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+
+        String url = "/rest/ships?order=RATING&pageSize=" + pageSize;
+        request = fields.isEmpty() ? get(url) : get(url + "&fields=" + fields);
+    }
+
+    @Benchmark
+    public MvcResult getShips() throws Exception {
+        shipListCache.invalidateAll();
+        sessionFactory.getCache().evictQueryRegions();
+        return context.perform(request);
+    }
+}
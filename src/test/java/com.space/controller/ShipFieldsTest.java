@@ -0,0 +1,131 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipFieldsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<Map<String, Object>>> typeReference = new TypeReference<List<Map<String, Object>>>() {
+    };
+
+    //test1
+    @Test
+    public void fieldsSelectOnlyRequestedColumns() throws Exception {
+        String filter = "/rest/ships?planet=a&order=RATING&pageNumber=1&pageSize=5";
+        List<Map<String, Object>> full = getShips(filter);
+
+        Statistics statistics = startStatistics();
+        List<Map<String, Object>> actual = getShips(filter + "&fields=id,name,rating");
+
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (Map<String, Object> ship : full) {
+            expected.add(project(ship, "id", "name", "rating"));
+        }
+        assertEquals("Параметр fields должен оставлять в ответе только запрошенные поля.", expected, actual);
+        assertEquals("Проекция не должна загружать сущности.", 0L, statistics.getEntityLoadCount());
+        assertEquals("Проекция должна выполняться одним SQL запросом.", 1L, statistics.getPrepareStatementCount());
+    }
+
+    //test2
+    @Test
+    public void fieldsWithDatesAndFlagsMatchFullShips() throws Exception {
+        List<Map<String, Object>> full = getShips("/rest/ships?pageSize=40");
+        List<Map<String, Object>> actual = getShips("/rest/ships?pageSize=40&fields=prodDate,isUsed,shipType,shipType");
+
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (Map<String, Object> ship : full) {
+            expected.add(project(ship, "prodDate", "isUsed", "shipType"));
+        }
+        assertEquals("Поля проекции должны сериализоваться так же, как поля корабля.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void fieldsWithCursorWalkAllPages() throws Exception {
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (Map<String, Object> ship : walk("/rest/ships?order=DATE&pageSize=7")) {
+            expected.add(project(ship, "name"));
+        }
+
+        List<Map<String, Object>> actual = walk("/rest/ships?order=DATE&pageSize=7&fields=name");
+        assertEquals("Курсор с параметром fields должен проходить те же корабли без лишних полей.", expected, actual);
+        assertTrue("Курсор должен вернуть несколько страниц.", actual.size() > 7);
+    }
+
+    //test4
+    @Test
+    public void unknownFieldReturnsBadRequest() throws Exception {
+        for (String fields : Arrays.asList("", "id,weight", "id,,name")) {
+            perform(get("/rest/ships?fields=" + fields)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    //test5
+    @Test
+    public void fieldsShrinkPayload() throws Exception {
+        String url = "/rest/ships?order=RATING&pageSize=40";
+        int full = getPayloadSize(url);
+        int idNameRating = getPayloadSize(url + "&fields=id,name,rating");
+        int id = getPayloadSize(url + "&fields=id");
+
+        assertTrue("Ответ с частью полей должен быть меньше полного: " + idNameRating + " и " + full + " байт",
+                idNameRating < full / 2);
+        assertTrue("Ответ только с id должен быть меньше ответа с тремя полями: " + id + " и " + idNameRating + " байт",
+                id < idNameRating / 2);
+    }
+
+    private int getPayloadSize(String url) throws Exception {
+        return perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    private List<Map<String, Object>> getShips(String url) throws Exception {
+        String content = perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+
+    private List<Map<String, Object>> walk(String url) throws Exception {
+        List<Map<String, Object>> ships = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = perform(get(url + "&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            ships.addAll(mapper.readValue(response.getContentAsString(), typeReference));
+            cursor = response.getHeader(ShipController.NEXT_CURSOR_HEADER);
+        }
+        return ships;
+    }
+
+    private static Map<String, Object> project(Map<String, Object> ship, String... fields) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String field : fields) {
+            result.put(field, ship.get(field));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package com.space.controller;
+
+import com.space.service.ShipService;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipJdbcReadTest extends AbstractTest {
+
+    private static final List<String> QUERIES = Arrays.asList(
+            "",
+            "?pageSize=40",
+            "?name=ra&pageNumber=1",
+            "?planet=a&shipType=MILITARY&order=SPEED&pageSize=5",
+            "?after=31000000000000&before=32500000000000&isUsed=false&order=DATE&pageSize=10",
+            "?minSpeed=0.3&maxSpeed=0.8&minCrewSize=100&order=RATING&pageSize=10",
+            "?maxCrewSize=3000&minRating=1.0&pageSize=10",
+            "?name=no-such-ship");
+
+    //test1
+    @Test
+    public void jdbcListMatchesJpaList() throws Exception {
+        for (String query : QUERIES) {
+            String separator = query.isEmpty() ? "?" : "&";
+            assertEquals("Чтение через JDBC должно возвращать тот же список кораблей: " + query,
+                    getContent("/rest/ships" + query + separator + "reader=JPA"),
+                    getContent("/rest/ships" + query + separator + "reader=JDBC"));
+        }
+    }
+
+    //test2
+    @Test
+    public void jdbcLookupMatchesJpaLookup() throws Exception {
+        assertEquals("Чтение корабля через JDBC должно возвращать тот же корабль.",
+                getContent("/rest/ships/7?reader=JPA"), getContent("/rest/ships/7?reader=JDBC"));
+
+        perform(get("/rest/ships/1000?reader=JDBC")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void jdbcReadBypassesHibernate() throws Exception {
+        Statistics statistics = startStatistics();
+
+        getContent("/rest/ships?planet=a&pageSize=10&reader=JDBC");
+        getContent("/rest/ships/7?reader=JDBC");
+
+        assertEquals("Чтение через JDBC не должно загружать сущности.", 0L, statistics.getEntityLoadCount());
+        assertEquals("Чтение через JDBC не должно выполнять запросы Hibernate.", 0L, statistics.getPrepareStatementCount());
+    }
+
+    //test4
+    @Test
+    public void propertySelectsJdbcByDefaultAndSeesWrites() throws Exception {
+        ShipService service = context.getBean(ShipService.class);
+        ReflectionTestUtils.setField(service, "jdbcReadEnabled", true);
+        try {
+            perform(post("/rest/ships/7")
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"name\": \"Firefly\"}"))
+                    .andExpect(status().isOk());
+
+            Statistics statistics = startStatistics();
+            String actual = getContent("/rest/ships?name=Firefly");
+            assertEquals("Без параметра reader должен использоваться способ чтения из настроек.",
+                    0L, statistics.getPrepareStatementCount());
+            assertEquals("Чтение через JDBC должно видеть изменения корабля.",
+                    getContent("/rest/ships?name=Firefly&reader=JPA"), actual);
+        } finally {
+            ReflectionTestUtils.setField(service, "jdbcReadEnabled", false);
+        }
+    }
+
+    private String getContent(String url) throws Exception {
+        return perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.space.controller;
+
+import com.space.config.BenchmarkContext;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация List&lt;Ship&gt; конвертером сообщений, который настраивает {@link com.space.config.WebConfig}
+ * Выделение памяти на ответ показывает профилировщик gc.
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipJsonBenchmark -Dbenchmark.args="-prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipJsonBenchmark {
+
+    @Param({"3", "40", "1000"})
+    private int size;
+
+    private MappingJackson2HttpMessageConverter converter;
+    private List<Ship> ships;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        for (HttpMessageConverter<?> candidate : context.getBean(RequestMappingHandlerAdapter.class).getMessageConverters()) {
+            if (candidate instanceof MappingJackson2HttpMessageConverter) {
+                converter = (MappingJackson2HttpMessageConverter) candidate;
+                break;
+            }
+        }
+
+        ships = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Ship ship = new Ship();
+            ship.setId((long) i + 1);
+            ship.setName("Orion " + i);
+            ship.setPlanet("Mars");
+            ship.setShipType(ShipType.values()[i % ShipType.values().length]);
+            ship.setProdDate(new Date(32945698800000L));
+            ship.setUsed(i % 2 == 0);
+            ship.setSpeed(0.5);
+            ship.setCrewSize(100 + i);
+            ship.setRating(1.23);
+            ships.add(ship);
+        }
+    }
+
+    /**
+     * Тело ответа отбрасывается, как при записи в сокет, поэтому выделение памяти относится только к сериализации
+     */
+    @Benchmark
+    public HttpHeaders writeShips(Blackhole blackhole) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        OutputStream body = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(len);
+            }
+        };
+        converter.write(ships, MediaType.APPLICATION_JSON, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+        return headers;
+    }
+}
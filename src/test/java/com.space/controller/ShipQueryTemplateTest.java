@@ -0,0 +1,91 @@
+package com.space.controller;
+
+import com.space.Specification.ShipFilter;
+import com.space.Specification.ShipQueryTemplate;
+import com.space.Specification.ShipSpecification;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class ShipQueryTemplateTest extends AbstractTest {
+
+    private static final String[] ORDERS = {"id", "speed", "prodDate", "rating"};
+
+    //test1
+    @Test
+    public void templatesMatchSpecificationQueries() {
+        ShipRepository shipRepository = context.getBean(ShipRepository.class);
+        Random random = new Random(24);
+
+        for (int i = 0; i < 300; i++) {
+            ShipFilter filter = randomFilter(random);
+            long[] candidateIds = random.nextInt(4) == 0 ? randomIds(random) : null;
+            Pageable pageable = PageRequest.of(random.nextInt(2), 1 + random.nextInt(10),
+                    Sort.by(ORDERS[random.nextInt(ORDERS.length)]).and(Sort.by("id")));
+
+            Specification<Ship> spec = ShipSpecification.getAllSpecification(filter);
+            if (candidateIds != null) spec = spec.and(ShipSpecification.getIdInSpecification(candidateIds));
+
+            assertEquals("Шаблон запроса должен возвращать те же корабли, что и Specification.",
+                    ids(shipRepository.findSlice(spec, pageable).getContent()),
+                    ids(shipRepository.findSlice(filter, candidateIds, pageable).getContent()));
+            assertEquals("Шаблон запроса должен подсчитывать столько же кораблей, сколько Specification.",
+                    shipRepository.count(spec), shipRepository.count(filter, candidateIds));
+        }
+    }
+
+    //test2
+    @Test
+    public void sameShapeSharesOneTemplate() {
+        ShipFilter first = new ShipFilter("Or", null, ShipType.MILITARY, null, 32000000000000L, null,
+                0.1, 0.9, null, null, null, null);
+        ShipFilter second = new ShipFilter("ion", null, ShipType.MERCHANT, null, 33000000000000L, null,
+                0.25, 0.5, null, null, null, null);
+
+        ShipQueryTemplate template = ShipQueryTemplate.of(first, null, Sort.by("speed"));
+        assertTrue("Одинаковый набор параметров фильтра должен использовать один шаблон.",
+                template == ShipQueryTemplate.of(second, null, Sort.by("speed")));
+        assertTrue("Другая сортировка должна использовать другой шаблон.",
+                template != ShipQueryTemplate.of(second, null, Sort.by("rating")));
+        assertTrue("Значения фильтра не должны попадать в текст запроса.",
+                !template.getSelectQuery().contains("0.1") && !template.getSelectQuery().contains("Or"));
+        assertEquals("Сортировку по нескольким полям, кроме id, шаблон не поддерживает.",
+                null, ShipQueryTemplate.of(first, null, Sort.by("speed").and(Sort.by("rating"))));
+    }
+
+    private static ShipFilter randomFilter(Random random) {
+        return new ShipFilter(
+                random.nextInt(4) == 0 ? "o" : null,
+                random.nextInt(4) == 0 ? "a" : null,
+                random.nextInt(3) == 0 ? ShipType.values()[random.nextInt(ShipType.values().length)] : null,
+                random.nextInt(3) == 0 ? 31000000000000L + random.nextInt(2000) * 1000000000L : null,
+                random.nextInt(3) == 0 ? 32000000000000L + random.nextInt(2000) * 1000000000L : null,
+                random.nextInt(3) == 0 ? random.nextBoolean() : null,
+                random.nextInt(3) == 0 ? random.nextInt(50) / 100.0 : null,
+                random.nextInt(3) == 0 ? 0.5 + random.nextInt(50) / 100.0 : null,
+                random.nextInt(3) == 0 ? random.nextInt(3000) : null,
+                random.nextInt(3) == 0 ? 3000 + random.nextInt(6000) : null,
+                random.nextInt(3) == 0 ? random.nextInt(100) / 100.0 : null,
+                random.nextInt(3) == 0 ? 1 + random.nextInt(300) / 100.0 : null);
+    }
+
+    private static long[] randomIds(Random random) {
+        return random.longs(random.nextInt(20), 1, 41).distinct().sorted().toArray();
+    }
+
+    private static List<Long> ids(List<Ship> ships) {
+        return ships.stream().map(Ship::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,114 @@
+package com.space.controller;
+
+import com.space.search.ShipReadReplica;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipReadReplicaTest extends AbstractTest {
+
+    private static final String[] QUERIES = {
+            "",
+            "?pageSize=40",
+            "?pageNumber=3&pageSize=7",
+            "?order=SPEED&pageSize=40",
+            "?order=DATE&pageNumber=2&pageSize=5",
+            "?order=RATING&pageSize=40",
+            "?name=er&planet=a&pageSize=40",
+            "?name=ER&order=SPEED&pageSize=40",
+            "?shipType=MILITARY&isUsed=false&pageSize=40",
+            "?isUsed=true&minSpeed=0.3&maxSpeed=0.6&order=RATING&pageSize=40",
+            "?after=32503680000000&before=32819212800000&pageSize=40",
+            "?minCrewSize=100&maxCrewSize=2000&minRating=0.5&maxRating=3&pageSize=40",
+            "?planet=xyz&pageSize=40",
+            "?name=Or_on&pageSize=40",
+            "?planet=%25ar%25s&order=SPEED&pageSize=40",
+            "?pageNumber=100&pageSize=40"
+    };
+
+    private ShipReadReplica replica;
+
+    @Before
+    public void enableReplica() {
+        replica = context.getBean(ShipReadReplica.class);
+        // LIKE в H2 учитывает регистр
+        ReflectionTestUtils.setField(replica, "ignoreCase", false);
+        replica.setEnabled(true);
+    }
+
+    @After
+    public void disableReplica() {
+        replica.setEnabled(false);
+        ReflectionTestUtils.setField(replica, "ignoreCase", true);
+    }
+
+    //test1
+    @Test
+    public void replicaMatchesDatabaseTest() throws Exception {
+        for (String query : QUERIES) {
+            String fromReplica = getContent("/rest/ships" + query);
+            String countFromReplica = getContent("/rest/ships/count" + query);
+
+            replica.setEnabled(false);
+            String fromDatabase = getContent("/rest/ships" + query);
+            String countFromDatabase = getContent("/rest/ships/count" + query);
+            replica.setEnabled(true);
+
+            assertEquals("Копия в памяти должна возвращать те же корабли, что и БД, для " + query,
+                    fromDatabase, fromReplica);
+            assertEquals("Копия в памяти должна возвращать то же количество, что и БД, для " + query,
+                    countFromDatabase, countFromReplica);
+        }
+    }
+
+    //test2
+    @Test
+    public void replicaDoesNotQueryDatabaseTest() throws Exception {
+        Statistics statistics = startStatistics();
+
+        getContent("/rest/ships?shipType=TRANSPORT&order=SPEED&pageSize=10");
+        getContent("/rest/ships/count?shipType=TRANSPORT");
+
+        assertEquals("Список и количество должны отдаваться без SQL запросов.",
+                0L, statistics.getPrepareStatementCount());
+    }
+
+    //test3
+    @Test
+    public void replicaFollowsWritesTest() throws Exception {
+        perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Replica\",\"planet\":\"Saturn\",\"shipType\":\"MERCHANT\"," +
+                        "\"prodDate\":32000000000000,\"speed\":0.5,\"crewSize\":10}"))
+                .andExpect(status().isOk());
+        assertEquals("Созданный корабль должен попасть в копию.", "1", getContent("/rest/ships/count?name=Replica"));
+
+        perform(delete("/rest/ships/1")).andExpect(status().isOk());
+        perform(post("/rest/ships/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Replica two\"}"))
+                .andExpect(status().isOk());
+
+        String fromReplica = getContent("/rest/ships?name=Replica&pageSize=40");
+        String countFromReplica = getContent("/rest/ships/count");
+        replica.setEnabled(false);
+        assertEquals("Измененные и удаленные корабли должны обновляться в копии.",
+                getContent("/rest/ships?name=Replica&pageSize=40"), fromReplica);
+        assertEquals("Удаленный корабль должен пропасть из копии.", getContent("/rest/ships/count"), countFromReplica);
+    }
+
+    private String getContent(String url) throws Exception {
+        return perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
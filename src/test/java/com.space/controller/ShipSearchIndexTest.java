@@ -0,0 +1,133 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.repository.ShipRepository;
+import com.space.search.ShipSearchIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipSearchIndexTest extends AbstractTest {
+
+    private static final String[] QUERIES = {
+            "?name=er&pageSize=40",
+            "?name=Ori&planet=Mar&pageSize=40",
+            "?name=Or_on&pageSize=40",
+            "?name=%25o%25&planet=Sat&pageSize=40",
+            "?planet=J_p&pageSize=40",
+            "?name=xyz&pageSize=40"
+    };
+
+    private ShipSearchIndex index;
+
+    @Before
+    public void enableIndex() {
+        index = context.getBean(ShipSearchIndex.class);
+        index.setEnabled(true);
+    }
+
+    @After
+    public void disableIndex() {
+        index.setEnabled(false);
+    }
+
+    //test1
+    @Test
+    public void indexMatchesDatabaseTest() throws Exception {
+        for (String query : QUERIES) {
+            String fromIndex = getContent("/rest/ships" + query);
+            String countFromIndex = getContent("/rest/ships/count" + query);
+
+            index.setEnabled(false);
+            String fromDatabase = getContent("/rest/ships" + query);
+            String countFromDatabase = getContent("/rest/ships/count" + query);
+            index.setEnabled(true);
+
+            assertEquals("Индекс не должен менять результат фильтра для " + query, fromDatabase, fromIndex);
+            assertEquals("Индекс не должен менять количество для " + query, countFromDatabase, countFromIndex);
+        }
+    }
+
+    //test2
+    @Test
+    public void wildcardsDoNotNarrowTest() {
+        assertNull("Подстрока с _ не должна сужать выборку.", index.getCandidateIds("Or_on", null));
+        assertNull("Подстрока с % не должна сужать выборку.", index.getCandidateIds("Ori%n", "a%"));
+        assertNotNull("Выборка сужается по полю без шаблона.", index.getCandidateIds("Or_on", "Mars"));
+    }
+
+    //test3
+    @Test
+    public void rebuildKeepsIndexForSearchesAndLaterChangesTest() throws Exception {
+        long[] expected = index.getCandidateIds("ori", null);
+        assertTrue("Подстрока должна находиться индексом.", expected != null && expected.length > 0);
+        ShipRepository repository = (ShipRepository) ReflectionTestUtils.getField(index, "shipRepository");
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // построение индекса останавливается после чтения снимка кораблей из БД
+        ReflectionTestUtils.setField(index, "shipRepository", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ShipRepository.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(repository, args);
+                    if (method.getName().equals("findAllSearchFields")) {
+                        read.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    return result;
+                }));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> rebuild = executor.submit(index::rebuild);
+            assertTrue("Построение индекса должно начаться.", read.await(5, TimeUnit.SECONDS));
+
+            assertTrue("Поиск во время построения должен использовать прежний полный индекс.",
+                    Arrays.equals(expected, index.getCandidateIds("ori", null)));
+
+            Ship renamed = new Ship();
+            renamed.setId(1L);
+            renamed.setName("Zyxwv");
+            renamed.setPlanet("Mars");
+            Future<?> save = executor.submit(() -> index.onSave(renamed));
+            try {
+                // изменение ждет окончания построения, поэтому здесь оно еще не применено
+                save.get(200, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // ожидаемо
+            }
+
+            release.countDown();
+            rebuild.get(5, TimeUnit.SECONDS);
+            save.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            ReflectionTestUtils.setField(index, "shipRepository", repository);
+        }
+
+        assertTrue("Снимок БД, прочитанный до изменения, не должен перезаписывать его.",
+                Arrays.equals(new long[]{1L}, index.getCandidateIds("Zyxwv", null)));
+    }
+
+    private String getContent(String url) throws Exception {
+        return perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.space.controller.utils.ShipInfoTest;
 import com.space.controller.utils.TestsHelper;
 import com.space.model.ShipType;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.ResultActions;
@@ -21,7 +22,7 @@ public class UpdateShipTest extends AbstractTest {
     //test1
     @Test
     public void updateShipIdZeroTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/0")
+        perform(post("/rest/ships/0")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NORMAL_JSON))
@@ -31,7 +32,7 @@ public class UpdateShipTest extends AbstractTest {
     //test2
     @Test
     public void updateShipNotExistTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/415")
+        perform(post("/rest/ships/415")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NORMAL_JSON))
@@ -43,7 +44,7 @@ public class UpdateShipTest extends AbstractTest {
     public void updateShipInvalidNameTest() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        perform(post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.EMPTY_NAME_JSON))
@@ -55,7 +56,7 @@ public class UpdateShipTest extends AbstractTest {
     public void updateShipInvalidProdDateTest() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        perform(post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NEGATIVE_PROD_DATE_JSON))
@@ -67,7 +68,7 @@ public class UpdateShipTest extends AbstractTest {
     public void updateShipInvalidCrewSizeTest() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        perform(post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.TOO_BIG_CREW_SIZE_JSON))
@@ -79,7 +80,7 @@ public class UpdateShipTest extends AbstractTest {
     public void updateShipInvalidCrewSizeTest2() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        perform(post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NEGATIVE_CREW_SIZE_JSON))
@@ -92,7 +93,7 @@ public class UpdateShipTest extends AbstractTest {
         ShipInfoTest expected = mapper.readValue(String.format(TestsHelper.NORMAL_JSON_WITH_ID, 5), ShipInfoTest.class);
         expected.rating = 12.8;
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/5")
+        ResultActions resultActions = perform(post("/rest/ships/5")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.NORMAL_JSON_WITH_ID, 8L)))
@@ -110,7 +111,7 @@ public class UpdateShipTest extends AbstractTest {
     public void updateShipEmptyBodyTest() throws Exception {
         ShipInfoTest expected = testsHelper.getShipInfosById(17);
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/17")
+        ResultActions resultActions = perform(post("/rest/ships/17")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content("{}"))
@@ -128,7 +129,7 @@ public class UpdateShipTest extends AbstractTest {
         ShipInfoTest expected = mapper.readValue(String.format(TestsHelper.NORMAL_JSON_WITH_ID, 23), ShipInfoTest.class);
         expected.rating = 12.8;
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/23")
+        ResultActions resultActions = perform(post("/rest/ships/23")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.NORMAL_JSON_WITH_RATING, "9")))
@@ -153,7 +154,7 @@ public class UpdateShipTest extends AbstractTest {
         ShipInfoTest expected = new ShipInfoTest(shipInfoTest.id, newName, shipInfoTest.planet, shipInfoTest.shipType, shipInfoTest.prodDate,
                 newIsUsed, newSpeed, newCrewSize, 6.67);
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        ResultActions resultActions = perform(post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.JSON_SKELETON, newName, String.valueOf(newIsUsed), String.valueOf(newSpeed), String.valueOf(newCrewSize))))
@@ -177,7 +178,7 @@ public class UpdateShipTest extends AbstractTest {
         ShipInfoTest expected = new ShipInfoTest(shipInfoTest.id, shipInfoTest.name, newPlanet, ShipType.MILITARY, 32556844329665L,
                 shipInfoTest.isUsed, shipInfoTest.speed, shipInfoTest.crewSize, 2.48);
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        ResultActions resultActions = perform(post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.JSON_SKELETON_2, newPlanet, String.valueOf(newShipType), String.valueOf(newProdDate))))
@@ -188,4 +189,35 @@ public class UpdateShipTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/ships/{id} корабль должен обновляться и рейтинг пересчитываться", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test12
+    @Test
+    public void updateShipLoadsShipOnce() throws Exception {
+        Statistics statistics = startStatistics();
+
+        perform(post("/rest/ships/14")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(String.format(TestsHelper.JSON_SKELETON, "TestName", "false", "0.5", "2500")))
+                .andExpect(status().isOk());
+
+        assertEquals("При запросе POST /rest/ships/{id} корабль должен загружаться один раз.", 1L, statistics.getEntityLoadCount());
+        assertEquals("При запросе POST /rest/ships/{id} корабль должен обновляться одним UPDATE.", 1L, statistics.getEntityUpdateCount());
+        assertEquals("Запрос POST /rest/ships/{id} должен выполняться одним SELECT и одним UPDATE.", 2L, statistics.getPrepareStatementCount());
+    }
+
+    //test13
+    @Test
+    public void updateShipEmptyBodyDoesNotUpdate() throws Exception {
+        Statistics statistics = startStatistics();
+
+        perform(post("/rest/ships/17")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isOk());
+
+        assertEquals("При запросе POST /rest/ships/{id} с пустым телом запроса UPDATE не выполняется.", 0L, statistics.getEntityUpdateCount());
+        assertEquals("Запрос POST /rest/ships/{id} с пустым телом должен выполняться одним SELECT.", 1L, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,84 @@
+package com.space.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+public class SqlProfilerTest {
+
+    private EmbeddedDatabase database;
+    private SqlProfiler profiler;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(H2).build();
+        profiler = new SqlProfiler(true, 0, 2, 10);
+        jdbcTemplate = new JdbcTemplate(profiler.wrap(database));
+        jdbcTemplate.execute("CREATE TABLE t (id BIGINT, name VARCHAR(10))");
+        profiler.reset();
+    }
+
+    @After
+    public void shutdown() {
+        database.shutdown();
+    }
+
+    //test1
+    @Test
+    public void recordsTextBindShapeAndRows() {
+        jdbcTemplate.batchUpdate("INSERT INTO t VALUES (?, ?)", Arrays.asList(
+                new Object[]{1L, "a"}, new Object[]{2L, "b"}, new Object[]{3L, "c"}));
+        profiler.setSource("ShipController.getAllShips", "shipType");
+        assertEquals(2, jdbcTemplate.queryForList("SELECT name FROM t WHERE id > ?", String.class, 1L).size());
+        profiler.clearSource();
+
+        List<SqlProfiler.SqlStatementStats> statements = profiler.getStatements(10);
+        assertEquals(2, statements.size());
+
+        SqlProfiler.SqlStatementStats insert = find(statements, "INSERT INTO t VALUES (?, ?)");
+        assertEquals("(Long, String) x3", insert.getBinds());
+        assertEquals(3, insert.getRows());
+        assertEquals("none", insert.getHandler());
+
+        SqlProfiler.SqlStatementStats select = find(statements, "SELECT name FROM t WHERE id > ?");
+        assertEquals("(Long)", select.getBinds());
+        assertEquals(2, select.getRows());
+        assertEquals(1, select.getCount());
+        assertEquals("ShipController.getAllShips", select.getHandler());
+        assertEquals("shipType", select.getFilter());
+    }
+
+    //test2
+    @Test
+    public void slowLogKeepsLatestStatements() {
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+        jdbcTemplate.queryForObject("SELECT 2", Integer.class);
+        jdbcTemplate.queryForObject("SELECT 3", Integer.class);
+
+        List<SqlProfiler.SlowSqlStatement> slow = profiler.getSlowStatements();
+        assertEquals(2, slow.size());
+        assertEquals("SELECT 3", slow.get(0).getSql());
+        assertEquals("SELECT 2", slow.get(1).getSql());
+        assertEquals(3, find(profiler.getStatements(10), "SELECT 1").getSlowCount()
+                + find(profiler.getStatements(10), "SELECT 2").getSlowCount()
+                + find(profiler.getStatements(10), "SELECT 3").getSlowCount());
+    }
+
+    private static SqlProfiler.SqlStatementStats find(List<SqlProfiler.SqlStatementStats> statements, String sql) {
+        for (SqlProfiler.SqlStatementStats stats : statements) {
+            if (sql.equals(stats.getSql())) return stats;
+        }
+        throw new AssertionError("Statement is not recorded: " + sql);
+    }
+}
@@ -0,0 +1,115 @@
+package com.space.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+public class ShipIndexTest {
+
+    // H2 пишет выбранный индекс комментарием, после двоеточия - условие поиска по индексу, без него - полный обход индекса
+    private static final Pattern INDEX = Pattern.compile("/\\* PUBLIC\\.(IX_SHIP_\\w+)(:)?");
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(H2)
+                .addScript("h2-mysql-mode.sql")
+                .build();
+        Flyway.configure()
+                .dataSource(database)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(database);
+
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @After
+    public void shutdown() {
+        database.shutdown();
+    }
+
+    //test1
+    @Test
+    public void filterShipTypeSpeedSeeksIndex() {
+        assertSeeksIndex("SELECT * FROM ship WHERE shipType = 'TRANSPORT' AND speed BETWEEN 0.3 AND 0.6 ORDER BY id LIMIT 4",
+                "IX_SHIP_TYPE_USED_");
+    }
+
+    //test2
+    @Test
+    public void filterShipTypeProdDateSeeksIndex() {
+        assertSeeksIndex("SELECT * FROM ship WHERE shipType = 'MILITARY' AND prodDate BETWEEN '3000-01-01' AND '3011-01-01' ORDER BY id LIMIT 4",
+                "IX_SHIP_TYPE_USED_");
+    }
+
+    //test3
+    @Test
+    public void filterIsUsedRatingSeeksIndex() {
+        assertSeeksIndex("SELECT * FROM ship WHERE isUsed = TRUE AND rating BETWEEN 2 AND 4 ORDER BY id LIMIT 4",
+                "IX_SHIP_RATING");
+    }
+
+    //test4
+    @Test
+    public void filterCrewSizeSeeksIndex() {
+        assertSeeksIndex("SELECT * FROM ship WHERE crewSize BETWEEN 10 AND 1000 ORDER BY id LIMIT 4",
+                "IX_SHIP_CREWSIZE");
+    }
+
+    //test5
+    @Test
+    public void orderBySpeedReadsIndexInOrder() {
+        String plan = explain("SELECT * FROM ship WHERE name LIKE '%ca%' ORDER BY speed, id LIMIT 4");
+
+        assertEquals("Сортировка по скорости должна читать индекс скорости: " + plan, "IX_SHIP_SPEED", index(plan).group(1));
+        assertTrue("Сортировка по скорости не должна выполняться отдельно от индекса: " + plan, plan.contains("index sorted"));
+    }
+
+    //test6
+    @Test
+    public void countByPlanetScansIndexInsteadOfTable() {
+        // LIKE '%x%' не ищет по B-дереву, но COUNT обходит узкий индекс планеты, а не строки таблицы
+        String plan = explain("SELECT COUNT(*) FROM ship WHERE planet LIKE '%us%'");
+
+        assertEquals("Подсчет по планете должен обходить индекс планеты: " + plan, "IX_SHIP_PLANET", index(plan).group(1));
+    }
+
+    private void assertSeeksIndex(String sql, String indexPrefix) {
+        String plan = explain(sql);
+        Matcher index = index(plan);
+
+        assertTrue("Запрос использует не тот индекс: " + plan, index.group(1).startsWith(indexPrefix));
+        assertTrue("Запрос обходит индекс целиком вместо поиска по условию: " + plan, index.group(2) != null);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private static Matcher index(String plan) {
+        Matcher matcher = INDEX.matcher(plan);
+        assertTrue("Запрос выполняется полным сканированием таблицы: " + plan, matcher.find());
+        return matcher;
+    }
+}
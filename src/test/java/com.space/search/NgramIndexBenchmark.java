@@ -0,0 +1,82 @@
+package com.space.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск подстроки в {@link NgramIndex} против полного перебора наименований
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=NgramIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NgramIndexBenchmark {
+
+    private static final String[] WORDS = {"Orion", "Daedalus", "Eagle", "Mongoose", "Excalibur", "Explorer", "Icarus",
+            "Hermes", "Odyssey", "Orbit", "Aries", "Hunter", "Serenity", "Scorpio", "Hawk", "Excelsior", "Amaterasu",
+            "Cygnus", "Argonaut", "Avalon", "Arcadia", "Dwarf", "Derelict", "Terra", "Hyperion", "Normandy"};
+
+    private static final String QUERY = "lus Hyp";
+
+    @Param({"1000000"})
+    private int ships;
+
+    private String[] names;
+    private NgramIndex index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        names = new String[ships];
+        index = new NgramIndex();
+        for (int i = 0; i < ships; i++) {
+            names[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + "-" + random.nextInt(1000);
+            index.put(i, names[i]);
+        }
+    }
+
+    @Benchmark
+    public long[] search() {
+        return index.search(QUERY, ships);
+    }
+
+    /**
+     * Для сравнения: перебор всех наименований, как LIKE '%x%' без индекса
+     */
+    @Benchmark
+    public int linearScan() {
+        String query = QUERY.toLowerCase(Locale.ROOT);
+        int found = 0;
+        for (String name : names) {
+            if (name.toLowerCase(Locale.ROOT).contains(query)) found++;
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NgramIndexBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
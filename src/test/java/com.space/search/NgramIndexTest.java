@@ -0,0 +1,108 @@
+package com.space.search;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NgramIndexTest {
+
+    private static final String[] WORDS = {"Orion", "Daedalus", "Eagle", "Mongoose", "Excalibur", "Explorer", "Icarus",
+            "Hermes", "Odyssey", "Orbit", "Aries", "Hunter", "Serenity", "Scorpio", "Hawk", "Excelsior", "Amaterasu",
+            "Cygnus", "Argonaut", "Avalon", "Arcadia", "Dwarf", "Derelict", "Terra", "Hyperion", "Normandy"};
+
+    //test1
+    @Test
+    public void searchFindsSubstringIgnoringCase() {
+        NgramIndex index = new NgramIndex();
+        index.put(1, "Orion III");
+        index.put(2, "Daedalus");
+        index.put(3, "Eagle Transporter");
+        index.put(4, "Orbit Jet");
+
+        assertArrayEquals(new long[]{1}, index.search("rion", 10));
+        assertArrayEquals(new long[]{3}, index.search("TRANSP", 10));
+        assertNull(index.search("Or", 10));
+        assertArrayEquals(new long[0], index.search("xyz", 10));
+    }
+
+    //test2
+    @Test
+    public void searchVerifiesCandidates() {
+        NgramIndex index = new NgramIndex();
+        index.put(1, "abcXbcd");
+        index.put(2, "abcd");
+
+        assertArrayEquals(new long[]{2}, index.search("abcd", 10));
+    }
+
+    //test3
+    @Test
+    public void putReplacesAndRemoveDeletes() {
+        NgramIndex index = new NgramIndex();
+        index.put(5, "Serenity");
+        index.put(5, "Firefly");
+
+        assertArrayEquals(new long[0], index.search("eren", 10));
+        assertArrayEquals(new long[]{5}, index.search("refl", 10));
+
+        index.remove(5);
+        assertArrayEquals(new long[0], index.search("refl", 10));
+        assertEquals(0, index.size());
+    }
+
+    //test4
+    @Test
+    public void searchReturnsNullWhenTooManyCandidates() {
+        NgramIndex index = new NgramIndex();
+        for (int i = 0; i < 10; i++) {
+            index.put(i, "Hermes " + i);
+        }
+
+        assertNull(index.search("erm", 5));
+        assertEquals(10, index.search("erm", 10).length);
+    }
+
+    //test5
+    @Test
+    public void searchIgnoresAccents() {
+        NgramIndex index = new NgramIndex();
+        index.put(1, "Séréńity");
+        index.put(2, "Serenity");
+
+        assertArrayEquals(new long[]{1, 2}, index.search("eren", 10));
+        assertArrayEquals(new long[]{1, 2}, index.search("ÉRÉN", 10));
+        assertNull(index.search("é", 10));
+    }
+
+    //test6
+    @Test
+    public void searchMatchesLinearScan() {
+        Random random = new Random(42);
+        String[] names = new String[10_000];
+        NgramIndex index = new NgramIndex();
+        for (int i = 0; i < names.length; i++) {
+            names[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + "-" + random.nextInt(1000);
+            index.put(i, names[i]);
+        }
+
+        for (String query : new String[]{"lus Hyp", "ORBIT", "s-12", "erra Ter"}) {
+            List<Long> expected = new ArrayList<>();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT))) expected.add((long) i);
+            }
+            long[] found = index.search(query, names.length);
+
+            assertEquals(query, expected.size(), found.length);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals(query, (long) expected.get(i), found[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.space.search;
+
+import com.space.Specification.ShipFilter;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтры по shipType, isUsed и planet на битовых картах {@link ShipColumns} для 1 и 10 млн кораблей
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipColumnsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShipColumnsBenchmark {
+
+    private static final String[] PLANETS = {"Earth", "Mars", "Venus", "Jupiter", "Saturn", "Uranus", "Neptune",
+            "Mercury", "Pluto", "Ceres", "Eris", "Haumea"};
+
+    private static final ShipFilter TYPE_USED_PLANET = new ShipFilter(null, "Mars", ShipType.MILITARY, null, null,
+            true, null, null, null, null, null, null);
+
+    private static final ShipFilter TYPE_USED_SPEED = new ShipFilter(null, null, ShipType.MILITARY, null, null,
+            true, 0.3, 0.6, null, null, null, null);
+
+    @Param({"1000000", "10000000"})
+    private int ships;
+
+    private ShipColumns columns;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(19);
+        columns = new ShipColumns();
+        for (long id = 1; id <= ships; id++) {
+            columns.put(new Object[]{id, "ship", PLANETS[random.nextInt(PLANETS.length)],
+                    ShipType.values()[random.nextInt(ShipType.values().length)],
+                    new Date(32000000000000L + random.nextInt(7000) * 86400000L), random.nextBoolean(),
+                    random.nextInt(99) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(8000) / 100.0});
+        }
+    }
+
+    @Benchmark
+    public long countTypeUsedPlanet() {
+        return ShipColumns.count(columns.filter(TYPE_USED_PLANET, false));
+    }
+
+    @Benchmark
+    public int[] pageTypeUsedPlanet() {
+        return columns.pageById(columns.filter(TYPE_USED_PLANET, false), 0, 20);
+    }
+
+    /**
+     * Для сравнения: условие по скорости проверяется по значениям столбца, а не по битовой карте
+     */
+    @Benchmark
+    public long countTypeUsedSpeed() {
+        return ShipColumns.count(columns.filter(TYPE_USED_SPEED, false));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShipColumnsBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.space.search;
+
+import com.space.Specification.ShipFilter;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ShipColumnsTest {
+
+    private static final String[] PLANETS = {"Earth", "Mars", "Venus", "Jupiter", "Saturn", "Neptune"};
+
+    //test1
+    @Test
+    public void bitmapFiltersMatchRowByRowCheck() {
+        Random random = new Random(18);
+        ShipColumns columns = new ShipColumns();
+        TreeMap<Long, Object[]> rows = new TreeMap<>();
+
+        // вставки не по порядку, замены и удаления сдвигают строки и запускают уплотнение
+        for (int i = 0; i < 20000; i++) {
+            long id = random.nextInt(6000);
+            if (random.nextInt(4) == 0) {
+                columns.remove(id);
+                rows.remove(id);
+            } else {
+                Object[] row = row(id, random);
+                columns.put(row);
+                rows.put(id, row);
+            }
+        }
+        assertEquals(rows.size(), columns.size());
+
+        for (ShipType type : ShipType.values()) {
+            for (Boolean used : new Boolean[]{null, true, false}) {
+                for (String planet : new String[]{null, "ar", "Neptune", "xyz"}) {
+                    ShipFilter filter = new ShipFilter(null, planet, type, null, null, used,
+                            null, null, null, null, null, null);
+                    Predicate<Object[]> expected = row -> row[3] == type
+                            && (used == null || used.equals(row[5]))
+                            && (planet == null || ((String) row[2]).contains(planet));
+
+                    long[] mask = columns.filter(filter, false);
+                    List<Long> expectedIds = rows.values().stream().filter(expected)
+                            .map(row -> (Long) row[0]).collect(Collectors.toList());
+
+                    assertEquals(expectedIds.size(), ShipColumns.count(mask));
+                    assertEquals(expectedIds, ids(columns, columns.pageById(mask, 0, rows.size())));
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void pageBySortsByFieldThenId() {
+        Random random = new Random(19);
+        ShipColumns columns = new ShipColumns();
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            Object[] row = row(id, random);
+            columns.put(row);
+            rows.add(row);
+        }
+
+        ShipFilter filter = new ShipFilter(null, null, ShipType.MILITARY, null, null, null,
+                null, null, null, null, null, null);
+        List<Long> expected = rows.stream()
+                .filter(row -> row[3] == ShipType.MILITARY)
+                .sorted(Comparator.<Object[], Double>comparing(row -> (Double) row[8])
+                        .thenComparing(row -> (Long) row[0]))
+                .map(row -> (Long) row[0])
+                .skip(20).limit(30)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, ids(columns, columns.pageBy("rating", columns.filter(filter, false), 20, 30)));
+        assertArrayEquals(new int[0], columns.pageBy("rating", columns.filter(filter, false), 500, 30));
+    }
+
+    //test3
+    @Test
+    public void rangeFiltersSkipNullValues() {
+        Random random = new Random(20);
+        ShipColumns columns = new ShipColumns();
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            Object[] row = row(id, random);
+            // в каждой пятой строке пусто одно из полей с диапазоном
+            if (id % 5 == 0) row[4 + (int) (id / 5 % 5)] = null;
+            columns.put(row);
+            rows.add(row);
+        }
+
+        ShipFilter filter = new ShipFilter(null, null, null, 32010000000000L, 32050000000000L, null,
+                0.2, 0.8, 100, 8000, 0.0, 3.0);
+        long expected = rows.stream()
+                .filter(row -> row[4] != null && ((Date) row[4]).getTime() >= 32010000000000L
+                        && ((Date) row[4]).getTime() <= 32050000000000L)
+                .filter(row -> row[6] != null && (Double) row[6] >= 0.2 && (Double) row[6] <= 0.8)
+                .filter(row -> row[7] != null && (Integer) row[7] >= 100 && (Integer) row[7] <= 8000)
+                .filter(row -> row[8] != null && (Double) row[8] >= 0.0 && (Double) row[8] <= 3.0)
+                .count();
+
+        assertEquals(expected, ShipColumns.count(columns.filter(filter, false)));
+    }
+
+    //test4
+    @Test
+    public void substringFiltersIgnoreCaseAndAccents() {
+        ShipColumns columns = new ShipColumns();
+        columns.put(new Object[]{1L, "Séréńity", "Mars", ShipType.MILITARY, new Date(32000000000000L), true, 0.5, 10, 1.0});
+        columns.put(new Object[]{2L, "Serenity", "Mārs", ShipType.MILITARY, new Date(32000000000000L), true, 0.5, 10, 1.0});
+        columns.put(new Object[]{3L, "Orion", "Venus", ShipType.MILITARY, new Date(32000000000000L), true, 0.5, 10, 1.0});
+
+        ShipFilter name = new ShipFilter("EREN", null, null, null, null, null, null, null, null, null, null, null);
+        ShipFilter planet = new ShipFilter(null, "mar", null, null, null, null, null, null, null, null, null, null);
+
+        assertEquals(2, ShipColumns.count(columns.filter(name, true)));
+        assertEquals(0, ShipColumns.count(columns.filter(name, false)));
+        assertEquals(2, ShipColumns.count(columns.filter(planet, true)));
+    }
+
+    private static Object[] row(long id, Random random) {
+        return new Object[]{id, "Ship " + id, PLANETS[random.nextInt(PLANETS.length)],
+                ShipType.values()[random.nextInt(ShipType.values().length)],
+                new Date(32000000000000L + random.nextInt(1000) * 86400000L), random.nextBoolean(),
+                random.nextInt(99) / 100.0 + 0.01, random.nextInt(9999) + 1, random.nextInt(50) / 10.0};
+    }
+
+    private static List<Long> ids(ShipColumns columns, int[] slots) {
+        List<Long> ids = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            Ship ship = columns.toShip(slot);
+            ids.add(ship.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,63 @@
+package com.space.service;
+
+import com.space.Specification.ShipFilter;
+import com.space.config.BenchmarkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Sort;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выгрузка всех кораблей через {@link ShipService#exportShips} в H2 профиля dev
+ * Память на выгрузку показывает профилировщик gc: gc.alloc.rate.norm, деленный на fleet, не должен расти
+ * с размером флота. Что корабли не копятся в контексте Hibernate, проверяет ExportShipsTest.
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipExportBenchmark -Dbenchmark.args="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipExportBenchmark {
+
+    @Param({"10000", "100000"})
+    private int fleet;
+
+    private ShipService shipService;
+    private final ShipFilter filter = new ShipFilter(null, null, null, null, null, null, null, null, null, null, null, null);
+    private final Sort sort = Sort.by("id");
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) throws SQLException {
+        shipService = context.getBean(ShipService.class);
+        try (Connection connection = context.getBean(DataSource.class).getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                    + "SELECT CONCAT('Fleet ', X), 'Earth', 'TRANSPORT', DATE '3000-01-01', FALSE, 0.5, 100, 2.0 "
+                    + "FROM SYSTEM_RANGE(1, " + fleet + ")");
+        }
+    }
+
+    @Benchmark
+    public void exportShips(Blackhole blackhole) {
+        shipService.exportShips(filter, sort, blackhole::consume);
+    }
+}
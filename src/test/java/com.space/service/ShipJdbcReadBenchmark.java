@@ -0,0 +1,82 @@
+package com.space.service;
+
+import com.space.Specification.ShipFilter;
+import com.space.config.BenchmarkContext;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение страницы кораблей и корабля по id через JPA и через JDBC в H2 профиля dev
+ * Кэш запросов и кэш второго уровня Hibernate сбрасываются перед каждым чтением через JPA,
+ * поэтому оба способа каждый раз выполняют SQL запрос
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipJdbcReadBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipJdbcReadBenchmark {
+
+    private static final ShipFilter FILTER = new ShipFilter(null, null, null, null, null, null,
+            0.1, null, null, null, null, null);
+
+    @Param({"10", "40"})
+    private int pageSize;
+
+    private ShipService shipService;
+    private SessionFactory sessionFactory;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        shipService = context.getBean(ShipService.class);
+        sessionFactory = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class);
+        pageable = PageRequest.of(0, pageSize, Sort.by("rating"));
+    }
+
+    @Benchmark
+    public Slice<Ship> jpaList() {
+        sessionFactory.getCache().evictQueryRegions();
+        return shipService.getSliceShips(shipService.getSpecification(FILTER), pageable);
+    }
+
+    @Benchmark
+    public List<ShipView> jdbcList() {
+        return shipService.getAllShipViews(FILTER, pageable);
+    }
+
+    @Benchmark
+    public Ship jpaLookup() {
+        sessionFactory.getCache().evictEntityData(Ship.class, 7L);
+        return shipService.getShipById(7L);
+    }
+
+    @Benchmark
+    public ShipView jdbcLookup() {
+        return shipService.getShipViewById(7L);
+    }
+}
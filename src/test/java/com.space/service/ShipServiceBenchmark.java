@@ -0,0 +1,53 @@
+package com.space.service;
+
+import com.space.config.BenchmarkContext;
+import com.space.model.Ship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обновление корабля через {@link ShipServiceIml#updateShip(Long, Ship)} в H2 профиля dev
+ * Скорость корабля меняется на каждом вызове, поэтому каждый вызов пересчитывает рейтинг и выполняет UPDATE
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=ShipServiceBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipServiceBenchmark {
+
+    private ShipService shipService;
+    private final Ship patch = new Ship();
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkContext context) {
+        shipService = context.getBean(ShipService.class);
+    }
+
+    @Benchmark
+    public Ship updateShip() {
+        patch.setSpeed(++counter % 2 == 0 ? 0.5 : 0.6);
+        return shipService.updateShip(14L, patch);
+    }
+
+    @Benchmark
+    public Ship updateShipWithoutChanges() {
+        patch.setSpeed(0.5);
+        return shipService.updateShip(15L, patch);
+    }
+}
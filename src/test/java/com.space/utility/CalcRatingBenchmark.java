@@ -0,0 +1,102 @@
+package com.space.utility;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение расчета рейтинга и проверки даты производства через {@link CalcRatingShipUtility}
+ * с прежней реализацией через Calendar и BigDecimal
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=CalcRatingBenchmark -Dbenchmark.args="-prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalcRatingBenchmark {
+
+    private Ship ship;
+
+    @Setup
+    public void setup() {
+        ship = new Ship();
+        ship.setName("Scorpio E-X-1");
+        ship.setPlanet("Mars");
+        ship.setShipType(ShipType.MERCHANT);
+        ship.setProdDate(new Date(32945698800000L));
+        ship.setUsed(true);
+        ship.setSpeed(0.03);
+        ship.setCrewSize(682);
+    }
+
+    @Benchmark
+    public double calcRating() {
+        return CalcRatingShipUtility.calcRating(ship.getSpeed(), ship.getUsed(), ship.getProdDate().getTime());
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return ValidationShipsUtility.isShipNotValid(ship);
+    }
+
+    /**
+     * Прежняя реализация CalcRatingShipUtility.calcRatingShip
+     */
+    @Benchmark
+    public double calcRatingCalendar() {
+        double k = ship.getUsed() ? 0.5 : 1.0;
+
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Europe/Moscow"));
+        calendar.setTime(ship.getProdDate());
+        int prodDate = calendar.get(Calendar.YEAR);
+
+        return BigDecimal.valueOf((80 * ship.getSpeed() * k) / (3019 - prodDate + 1))
+                .setScale(2, RoundingMode.HALF_EVEN).doubleValue();
+    }
+
+    /**
+     * Прежние проверки скорости и даты производства из ValidationShipsUtility
+     */
+    @Benchmark
+    public boolean validateCalendar() {
+        double roundSpeed = BigDecimal.valueOf(ship.getSpeed())
+                .setScale(2, RoundingMode.HALF_EVEN).doubleValue();
+        if (roundSpeed < 0.01 || roundSpeed > 0.99) return true;
+
+        Date date = ship.getProdDate();
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Europe/Moscow"));
+        calendar.setTime(date);
+        int prodDate = calendar.get(Calendar.YEAR);
+
+        return date.getTime() < 0 && prodDate < 2800 || prodDate > 3019;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CalcRatingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
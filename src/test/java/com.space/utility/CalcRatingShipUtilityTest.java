@@ -0,0 +1,102 @@
+package com.space.utility;
+
+import com.space.model.Ship;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CalcRatingShipUtilityTest {
+
+    private static final long YEAR_2800 = 26192235600000L;
+    private static final long YEAR_3020 = 33134734800000L;
+
+    //test1
+    @Test
+    public void prodYearMatchesCalendar() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long millis = YEAR_2800 + (long) (random.nextDouble() * (YEAR_3020 - YEAR_2800));
+            assertEquals(millis + "", calendarYear(millis), CalcRatingShipUtility.getProdYear(millis));
+        }
+    }
+
+    //test2
+    @Test
+    public void prodYearMatchesCalendarOnYearBoundaries() {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Europe/Moscow"));
+        for (int year = 1000; year <= 4000; year++) {
+            calendar.clear();
+            calendar.set(year, Calendar.JANUARY, 1);
+            long start = calendar.getTimeInMillis();
+            for (long millis : new long[]{start - 1, start, start + 1}) {
+                assertEquals(millis + "", calendarYear(millis), CalcRatingShipUtility.getProdYear(millis));
+            }
+        }
+    }
+
+    //test3
+    @Test
+    public void roundHalfEvenMatchesBigDecimal() {
+        double[] ties = {0.125, 0.135, 0.145, 1.005, 1.015, 2.675, 0.285, -0.125, -1.015, 0.0, -0.0, -0.001, 12345.675};
+        for (double value : ties) {
+            assertBitIdentical(value);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000_000; i++) {
+            assertBitIdentical(random.nextDouble() * 100);
+            // значения с тремя знаками после запятой попадают точно на половину сотых
+            assertBitIdentical(random.nextInt(100_000) / 1000.0);
+        }
+    }
+
+    //test4
+    @Test
+    public void ratingMatchesPreviousImplementation() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            double speed = CalcRatingShipUtility.roundHalfEven(0.01 + random.nextDouble() * 0.98);
+            boolean used = random.nextBoolean();
+            long millis = YEAR_2800 + (long) (random.nextDouble() * (YEAR_3020 - YEAR_2800));
+
+            double expected = BigDecimal.valueOf((80 * speed * (used ? 0.5 : 1.0)) / (3019 - calendarYear(millis) + 1))
+                    .setScale(2, RoundingMode.HALF_EVEN).doubleValue();
+            assertEquals(Double.doubleToRawLongBits(expected),
+                    Double.doubleToRawLongBits(CalcRatingShipUtility.calcRating(speed, used, millis)));
+        }
+    }
+
+    //test5
+    @Test
+    public void recalcRatingShipReturnsOnlyChangedRatings() {
+        Date prodDate = new Date(32945698800000L);
+        double rating = CalcRatingShipUtility.calcRating(0.5, true, prodDate.getTime());
+
+        Ship ship = CalcRatingShipUtility.recalcRatingShip(new Object[]{7L, prodDate, true, 0.5, rating + 1});
+        assertEquals(Long.valueOf(7L), ship.getId());
+        assertEquals(Double.valueOf(rating), ship.getRating());
+
+        assertNull(CalcRatingShipUtility.recalcRatingShip(new Object[]{7L, prodDate, true, 0.5, rating}));
+        assertNull(CalcRatingShipUtility.recalcRatingShip(new Object[]{7L, prodDate, null, 0.5, null}));
+    }
+
+    private static void assertBitIdentical(double value) {
+        double expected = BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_EVEN).doubleValue();
+        assertEquals(String.valueOf(value), Double.doubleToRawLongBits(expected),
+                Double.doubleToRawLongBits(CalcRatingShipUtility.roundHalfEven(value)));
+    }
+
+    private static int calendarYear(long millis) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Europe/Moscow"));
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.YEAR);
+    }
+}
@@ -0,0 +1,92 @@
+package com.space.utility;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение частичного обновления корабля через {@link MergeShipUtility}
+ * с прежним циклом по полям через reflection
+ * <p>
+ * Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark=MergeShipBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeShipBenchmark {
+
+    private Ship patch;
+    private Ship existsShip;
+
+    @Setup
+    public void setup() {
+        patch = new Ship();
+        patch.setName("TestName");
+        patch.setUsed(false);
+        patch.setSpeed(0.5);
+        patch.setCrewSize(2500);
+
+        existsShip = new Ship();
+        existsShip.setId(14L);
+        existsShip.setName("Scorpio E-X-1");
+        existsShip.setPlanet("Mars");
+        existsShip.setShipType(ShipType.MERCHANT);
+        existsShip.setProdDate(new Date(32945698800000L));
+        existsShip.setUsed(false);
+        existsShip.setSpeed(0.03);
+        existsShip.setCrewSize(682);
+        existsShip.setRating(0.40);
+    }
+
+    @Benchmark
+    public Ship mergeShip() {
+        MergeShipUtility.mergeShip(patch, existsShip);
+        return existsShip;
+    }
+
+    /**
+     * Прежняя реализация ShipServiceIml.updateShip без повторной загрузки корабля из БД,
+     * вместо нее пустые поля берутся из самого обновляемого корабля
+     */
+    @Benchmark
+    public Ship reflectiveLoop() throws IllegalAccessException {
+        Field[] fields = existsShip.getClass().getDeclaredFields();
+        for (Field field : fields) {
+            field.setAccessible(true);
+            if (!field.getName().equals("id") && !field.getName().equals("rating")) {
+                Object value = field.get(patch);
+                if (value == null) {
+                    value = field.get(existsShip);
+                }
+                field.set(existsShip, value);
+            }
+        }
+        return existsShip;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MergeShipBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
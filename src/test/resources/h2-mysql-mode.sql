@@ -0,0 +1 @@
+SET MODE MySQL;